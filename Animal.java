@@ -12,8 +12,22 @@ public abstract class Animal
     private boolean alive;
     // The living-creature's field.
     private Field field;
-    // The living-creature's position in the field.
-    private Location location;
+    // The living-creature's position in the field, packed, or
+    // Location.NOWHERE once it has died.
+    private long location;
+    // An identifier which keys the creature's random stream each step.
+    private long id;
+    // The step at which the creature's age was zero.
+    private int birthStep;
+    // The step at which the creature starves, or NEVER if it does not eat.
+    private int starvationStep;
+
+    // Whether one of the two places holding the dead creature has let
+    // go of it; see letGo.
+    private boolean letGoOnce;
+
+    // The starvation step of a creature that does not eat.
+    static final int NEVER = Integer.MAX_VALUE;
 
     protected boolean isFemale; 
 
@@ -24,12 +38,105 @@ public abstract class Animal
      * @param location The location within the field.
      */
     public Animal(Field field, Location location)
+    {
+        this(field, location.pack());
+    }
+
+    /**
+     * Create a new living-creature at a packed location in field.
+     * 
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    Animal(Field field, long location)
+    {
+        bringToLife(field, location);
+    }
+
+    /**
+     * Create a creature that is not alive and is in no field, for the
+     * state of one kept in a PopulationStore to be loaded into.
+     */
+    Animal()
+    {
+        location = Location.NOWHERE;
+    }
+
+    /**
+     * Bring a dead creature back to life as a new born at location in
+     * field, just as if it had been created there, so that the object
+     * can be reused. Nothing that held it while it was alive may still
+     * hold it.
+     * @param field The field to be born in.
+     * @param location The packed location within the field.
+     */
+    final void rebirth(Field field, long location)
+    {
+        bringToLife(field, location);
+        initialize(false);
+    }
+
+    /**
+     * Give the creature a new identity, alive at location in field.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    private void bringToLife(Field field, long location)
     {
         alive = true;
+        letGoOnce = false;
+        id = Randomizer.current().nextLong();
         this.field = field;
+        birthStep = field.getStep();
+        starvationStep = NEVER;
+        this.location = Location.NOWHERE;
         setLocation(location);
     }
 
+    /**
+     * Make the creature stand for one kept in a PopulationStore, alive
+     * in a cell of field that already holds it, with the given state.
+     * Nothing is placed in the field or logged.
+     * @param field The field the creature is in.
+     * @param location The packed location of its cell.
+     * @param id The creature's identifier.
+     * @param birthStep The step at which its age was zero.
+     * @param starvationStep The step at which it starves, or NEVER if
+     *                       it does not eat.
+     * @param female Whether it is female.
+     */
+    void load(Field field, long location, long id, int birthStep, int starvationStep, boolean female)
+    {
+        alive = true;
+        letGoOnce = false;
+        this.field = field;
+        this.location = location;
+        this.id = id;
+        this.birthStep = birthStep;
+        this.starvationStep = starvationStep;
+        isFemale = female;
+    }
+
+    /**
+     * Let go of the field without dying, e.g. once a PopulationStore has
+     * taken the creature's place in it: the creature is no longer alive
+     * or anywhere, but no death is recorded or logged and its cell is
+     * left as it is. It can then be released to an AnimalPool.
+     */
+    void detach()
+    {
+        alive = false;
+        location = Location.NOWHERE;
+        field = null;
+    }
+
+    /**
+     * Give a creature just brought to life its age, food level and sex.
+     * @param randomAge If true, the creature will have a random age and,
+     *                  if it eats, food level; otherwise those of a new born.
+     */
+    abstract void initialize(boolean randomAge);
+
     /**
      * Make this living-creature act - that is: make it do
      * whatever it wants/needs to do.
@@ -37,6 +144,163 @@ public abstract class Animal
      */
     abstract public void act(List<Animal> newLivingCreature, boolean isDay);
 
+    /**
+     * Return the species of this living-creature, which the field
+     * records alongside its location.
+     * @return The living-creature's species.
+     */
+    abstract public Species getSpecies();
+
+    /**
+     * @return The oldest age to which the creature can live.
+     */
+    abstract int getMaxAge();
+
+    /**
+     * Return the creature's age. Rather than being counted up every
+     * step, it is worked out from the step at which the creature was
+     * born and the step the field is at.
+     * @return The creature's age.
+     */
+    int getAge()
+    {
+        return field.getStep() - birthStep;
+    }
+
+    /**
+     * Return the step at which the creature was born. Unlike getAge,
+     * this can be asked of a dead creature.
+     * @return The step at which the creature was born.
+     */
+    int getBirthStep()
+    {
+        return birthStep;
+    }
+
+    /**
+     * @return The step at which the creature starves, or NEVER if it
+     *         does not eat.
+     */
+    int getStarvationStep()
+    {
+        return starvationStep;
+    }
+
+    /**
+     * Set the creature's age as of the step the field is at.
+     * @param age The age.
+     */
+    protected void setAge(int age)
+    {
+        birthStep = field.getStep() - age;
+    }
+
+    /**
+     * Return the creature's food level: the number of steps until it
+     * starves, worked out from the step at which it will starve.
+     * @return The creature's food level, or 0 if it does not eat.
+     */
+    int getFoodLevel()
+    {
+        return starvationStep == NEVER ? 0 : starvationStep - field.getStep();
+    }
+
+    /**
+     * Set the creature's food level as of the step the field is at. A
+     * creature whose food level is never set does not eat.
+     * @param foodLevel The food level.
+     */
+    protected void setFoodLevel(int foodLevel)
+    {
+        starvationStep = field.getStep() + foodLevel;
+    }
+
+    /**
+     * Eat, putting off starvation.
+     * @param foodValue The number of steps the food lasts.
+     */
+    protected void feed(int foodValue)
+    {
+        starvationStep += foodValue;
+    }
+
+    /**
+     * Return the first step at which the creature will die of old age
+     * or hunger unless it eats first.
+     * @return The step.
+     */
+    int getDeathStep()
+    {
+        return Math.min(birthStep + getMaxAge() + 1, starvationStep);
+    }
+
+    /**
+     * Make the creature die of old age or hunger if, as of the step the
+     * field is at, it has grown too old or run out of food. This does
+     * nothing if the creature is already dead.
+     */
+    protected void checkLifespan()
+    {
+        if(!alive) {
+            return;
+        }
+        int step = field.getStep();
+        if(step - birthStep > getMaxAge()) {
+            setDead(DeathCause.OLD_AGE);
+        }
+        else if(step >= starvationStep) {
+            setDead(DeathCause.STARVATION);
+        }
+    }
+
+    /**
+     * Set the creature's age and food level, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel The food level; ignored if it does not eat.
+     */
+    abstract void restoreState(int age, int foodLevel);
+
+    /**
+     * Give the creature the identity and state recorded in a checkpoint,
+     * replacing those it was created with.
+     * @param id The creature's identifier.
+     * @param female Whether the creature is female.
+     * @param age The age.
+     * @param foodLevel The food level.
+     */
+    void restore(long id, boolean female, int age, int foodLevel)
+    {
+        this.id = id;
+        isFemale = female;
+        restoreState(age, foodLevel);
+    }
+
+    /**
+     * Return the creature's identifier. It is drawn from the random
+     * stream in use when the creature is created, so it is the same
+     * on every run with the same seed.
+     * @return The creature's identifier.
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Record that one of two places holding the dead creature, such as
+     * a roster and a schedule of deaths, has let go of it.
+     * @return true if the other had already let go, so that nothing
+     *         holds the creature any more.
+     */
+    boolean letGo()
+    {
+        if(letGoOnce) {
+            return true;
+        }
+        letGoOnce = true;
+        return false;
+    }
+
     /**
      * Check whether the creature is alive or not.
      * @return true if the creature is still alive.
@@ -47,39 +311,86 @@ public abstract class Animal
     }
 
     /**
-     * Indicate that the living-creature is no longer alive.
-     * It is removed from the field.
+     * Indicate that the living-creature has died of the given cause,
+     * recording and logging its death if it was alive. It is removed
+     * from the field.
+     * @param cause How it died.
      */
-    protected void setDead()
+    protected void setDead(DeathCause cause)
     {
+        if(alive && field != null) {
+            field.getEvents().recordDeath(getSpecies(), cause);
+        }
         alive = false;
-        if(location != null) {
-            field.clear(location);
-            location = null;
+        if(location != Location.NOWHERE) {
+            EventLog log = field.getEventLog();
+            if(log != null) {
+                log.death(getSpecies(), cause, location);
+            }
+            field.clear(Location.rowOf(location), Location.colOf(location));
+            location = Location.NOWHERE;
             field = null;
         }
     }
 
     /**
-     * Return the living-creature's location.
-     * @return The living-creature's location.
+     * Return the living-creature's location. This allocates, so within
+     * the simulation getRow and getCol are to be preferred.
+     * @return The living-creature's location, or null once it has died.
      */
     protected Location getLocation()
+    {
+        return location == Location.NOWHERE ? null : Location.unpack(location);
+    }
+
+    /**
+     * @return The living-creature's location, packed, or
+     *         Location.NOWHERE once it has died.
+     */
+    long getPackedLocation()
     {
         return location;
     }
 
+    /**
+     * @return The row of the living-creature's location.
+     */
+    protected int getRow()
+    {
+        return Location.rowOf(location);
+    }
+
+    /**
+     * @return The column of the living-creature's location.
+     */
+    protected int getCol()
+    {
+        return Location.colOf(location);
+    }
+
     /**
      * Place the living-creature at the new location in the given field.
-     * @param newLocation The living-creature's new location.
+     * If the field is logged, this is logged as a move or, the first
+     * time, as the creature's birth.
+     * @param newLocation The living-creature's new location, packed.
      */
-    protected void setLocation(Location newLocation)
+    protected void setLocation(long newLocation)
     {
-        if(location != null) {
-            field.clear(location);
+        EventLog log = field.getEventLog();
+        if(location != Location.NOWHERE) {
+            field.move(Location.rowOf(location), Location.colOf(location),
+                       Location.rowOf(newLocation), Location.colOf(newLocation));
+            if(log != null) {
+                log.move(location, newLocation);
+            }
+        }
+        else {
+            field.place(this, Location.rowOf(newLocation), Location.colOf(newLocation));
+            if(log != null) {
+                log.birth(getSpecies(), newLocation);
+            }
         }
         location = newLocation;
-        field.place(this, newLocation);
     }
 
     /**
@@ -97,15 +408,16 @@ public abstract class Animal
 
     /**
      * Move to an adjacent empty cell or otherwise die due to overcrowding
+     * @param around The summary of the living-creature's neighbourhood.
      */
-    protected void move(){
-        Location nextLocation = getField().freeAdjacentLocation(getLocation());
-        if(nextLocation != null) {
+    protected void move(NeighbourhoodSummary around){
+        long nextLocation = around.takeFree(getSpecies());
+        if(nextLocation != Location.NOWHERE) {
             setLocation(nextLocation);
         }
         else {
             // Overcrowding.
-            setDead();
+            setDead(DeathCause.OVERCROWDING);
         }
     }
 
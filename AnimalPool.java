@@ -0,0 +1,162 @@
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Dead animals kept for reuse, by species, so that young can be born
+ * into old objects instead of new ones being made for every birth.
+ *
+ * An animal may only be released to the pool once nothing that held it
+ * while it was alive, such as a roster or a schedule of deaths, still
+ * holds it: it is brought back to life as a new born when it is next
+ * obtained. Dying has already cleared its field and location, so the
+ * pool keeps nothing else alive.
+ *
+ * Young may be born on several threads at once. Released animals go to
+ * a shared stock, and each thread takes them from it a batch at a time
+ * onto a shelf of its own, so the lock is held only to move a batch.
+ * An animal is brought back to life, which places it in the field, off
+ * the thread's shelf outside any lock.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class AnimalPool
+{
+    // The most dead animals of a species a thread takes from the stock
+    // at a time.
+    private static final int BATCH = 64;
+    // Each thread's shelf. It is shared by every pool and bound to the
+    // one asking, so that a thread holds on to no pool once done with it.
+    private static final ThreadLocal<Shelf> SHELVES = ThreadLocal.withInitial(Shelf::new);
+
+    // The dead animals of each species, indexed by species code.
+    private final Animal[][] free;
+    // The number of dead animals of each species.
+    private final int[] counts;
+
+    /**
+     * Create an empty pool.
+     */
+    public AnimalPool()
+    {
+        free = new Animal[Species.codeCount()][16];
+        counts = new int[Species.codeCount()];
+    }
+
+    /**
+     * Return a new born animal at location in field, reusing a dead one
+     * of the species if there is one.
+     * @param species The species of the animal.
+     * @param field The field the animal is born in.
+     * @param location Where it is born, packed.
+     * @return The animal.
+     */
+    public Animal obtain(Species species, Field field, long location)
+    {
+        Shelf shelf = SHELVES.get().bind(this);
+        int code = species.getCode();
+        if(shelf.counts[code] == 0 && take(code, shelf) == 0) {
+            return species.create(field, location, false);
+        }
+        Animal animal = shelf.animals[code][--shelf.counts[code]];
+        shelf.animals[code][shelf.counts[code]] = null;
+        animal.rebirth(field, location);
+        return animal;
+    }
+
+    /**
+     * Keep a dead animal for reuse. Nothing else may hold it any more.
+     * @param animal The animal.
+     */
+    public synchronized void release(Animal animal)
+    {
+        if(animal.isAlive()) {
+            throw new IllegalArgumentException("Cannot release a living " + animal.getSpecies().getName());
+        }
+        put(animal.getSpecies().getCode(), animal);
+    }
+
+    /**
+     * @return The number of dead animals kept for reuse in the shared
+     *         stock. Those already taken onto a thread's shelf are not
+     *         counted.
+     */
+    public synchronized int size()
+    {
+        int size = 0;
+        for(int count : counts) {
+            size += count;
+        }
+        return size;
+    }
+
+    /**
+     * Move up to a batch of dead animals of a species from the stock to
+     * an empty shelf.
+     * @param code The code of the species.
+     * @param shelf The shelf, which holds none of the species.
+     * @return The number moved.
+     */
+    private synchronized int take(int code, Shelf shelf)
+    {
+        int moved = Math.min(BATCH, counts[code]);
+        counts[code] -= moved;
+        System.arraycopy(free[code], counts[code], shelf.animals[code], 0, moved);
+        Arrays.fill(free[code], counts[code], counts[code] + moved, null);
+        shelf.counts[code] = moved;
+        return moved;
+    }
+
+    /**
+     * Add a dead animal to the stock.
+     * @param code The code of its species.
+     * @param animal The animal.
+     */
+    private synchronized void put(int code, Animal animal)
+    {
+        if(counts[code] == free[code].length) {
+            free[code] = Arrays.copyOf(free[code], counts[code] * 2);
+        }
+        free[code][counts[code]++] = animal;
+    }
+
+    /**
+     * The dead animals one thread has taken from a pool's stock and not
+     * yet brought back to life.
+     */
+    private static class Shelf
+    {
+        // The pool the animals came from, held weakly so that a shelf
+        // does not keep it alive.
+        private WeakReference<AnimalPool> owner = new WeakReference<>(null);
+        // The animals of each species, indexed by species code, and the
+        // number of each.
+        private final Animal[][] animals = new Animal[Species.codeCount()][BATCH];
+        private final int[] counts = new int[Species.codeCount()];
+
+        /**
+         * Make this the shelf of a pool, first handing any animals it
+         * holds back to the pool they came from, if it is still in use.
+         * @param pool The pool.
+         * @return This shelf.
+         */
+        Shelf bind(AnimalPool pool)
+        {
+            AnimalPool previous = owner.get();
+            if(previous == pool) {
+                return this;
+            }
+            for(int code = 0; code < counts.length; code++) {
+                for(int i = 0; i < counts[code]; i++) {
+                    if(previous != null) {
+                        previous.put(code, animals[code][i]);
+                    }
+                    animals[code][i] = null;
+                }
+                counts[code] = 0;
+            }
+            owner = new WeakReference<>(pool);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The complete state of a simulation between two steps, from which the
+ * run can be resumed exactly as if it had never stopped.
+ *
+ * A checkpoint holds the field size, the step, whether it is day,
+ * whether animals age lazily, the seed and creation probabilities, and
+ * the identifier, species, sex,
+ * age, food level and location of every living animal, in the order in
+ * which they act. Every random decision is keyed from the seed, the
+ * step and an animal's identifier, so that is all the random state
+ * there is. Animals that occupy the field without acting are kept too,
+ * as is which animal holds each cell, so the resumed field is the same
+ * cell for cell.
+ *
+ * Taking a checkpoint copies the state into arrays, which is quick;
+ * writing it can then be left to a background thread with writeAsync
+ * while the simulation carries on. Files are written through a channel
+ * in a compact big-endian binary form, optionally GZIP-compressed, to
+ * a temporary file that replaces the target once complete. Reading
+ * recognises compressed files by themselves.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class Checkpoint
+{
+    // Marks the start of a checkpoint file ("SIMC").
+    private static final int MAGIC = 0x53494D43;
+    // The version of the file layout. Version 1 did not record lazy
+    // aging, which was then never used by a resumed run.
+    private static final int VERSION = 2;
+    // The first two bytes of every GZIP stream.
+    private static final int GZIP_MAGIC = 0x1f8b;
+    // The size of the buffer used for reading and writing.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The bytes written for each animal.
+    private static final int ANIMAL_BYTES = 1 + 1 + 8 + 4 * 4;
+    // Bits of an animal's flags.
+    private static final byte FEMALE = 1;
+    private static final byte PLACED = 2;
+    // The thread on which checkpoints are written by writeAsync.
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "Checkpoint writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The size of the field.
+    private final int depth, width;
+    // The last step that was run, and whether it was day.
+    private final int step;
+    private final boolean isDay;
+    // Whether animals aged lazily.
+    private final boolean lazyAging;
+    // The seed of the run.
+    private final long seed;
+    // The creation probability of each species, indexed by species code.
+    private final double[] probabilities;
+    // How many of the animals are in the simulation's list of animals;
+    // the rest only occupy the field.
+    private final int listed;
+    // The state of each animal.
+    private final byte[] species;
+    private final byte[] flags;
+    private final long[] ids;
+    private final int[] rows, cols, ages, foodLevels;
+
+    /**
+     * Create a checkpoint with room for the given number of animals,
+     * whose state is then filled in.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param step The last step that was run.
+     * @param isDay Whether it is day.
+     * @param lazyAging Whether animals age lazily.
+     * @param seed The seed of the run.
+     * @param probabilities The creation probability of each species code.
+     * @param listed How many of the animals act.
+     * @param animals The number of animals.
+     */
+    private Checkpoint(int depth, int width, int step, boolean isDay, boolean lazyAging, long seed,
+                       double[] probabilities, int listed, int animals)
+    {
+        this.depth = depth;
+        this.width = width;
+        this.step = step;
+        this.isDay = isDay;
+        this.lazyAging = lazyAging;
+        this.seed = seed;
+        this.probabilities = probabilities;
+        this.listed = listed;
+        species = new byte[animals];
+        flags = new byte[animals];
+        ids = new long[animals];
+        rows = new int[animals];
+        cols = new int[animals];
+        ages = new int[animals];
+        foodLevels = new int[animals];
+    }
+
+    /**
+     * Capture the state of a simulation.
+     * @param field The field.
+     * @param animals The animals that act, in the order they act.
+     * @param step The last step that was run.
+     * @param isDay Whether it is day.
+     * @param lazyAging Whether animals age lazily.
+     * @param config The seed and creation probabilities.
+     * @return The checkpoint.
+     */
+    static Checkpoint capture(Field field, List<Animal> animals, int step, boolean isDay,
+                              boolean lazyAging, SimulatorConfig config)
+    {
+        // Number the living animals in order, then anything else in the field.
+        Map<Animal, Integer> numbers = new IdentityHashMap<>();
+        for(Animal animal : animals) {
+            if(animal.isAlive()) {
+                numbers.put(animal, numbers.size());
+            }
+        }
+        int listed = numbers.size();
+        field.forEachObject(occupant -> {
+            if(!numbers.containsKey(occupant)) {
+                if(!(occupant instanceof Animal)) {
+                    throw new IllegalStateException("Cannot checkpoint a " + occupant.getClass().getName());
+                }
+                numbers.put((Animal) occupant, numbers.size());
+            }
+        });
+
+        double[] probabilities = new double[Species.codeCount()];
+        for(Species kind : Species.values()) {
+            if(kind != Species.OTHER) {
+                probabilities[kind.getCode()] = config.getCreationProbability(kind);
+            }
+        }
+        Checkpoint checkpoint = new Checkpoint(field.getDepth(), field.getWidth(), step, isDay, lazyAging,
+                                               config.getSeed(), probabilities, listed, numbers.size());
+        for(Map.Entry<Animal, Integer> entry : numbers.entrySet()) {
+            Animal animal = entry.getKey();
+            int i = entry.getValue();
+            int row = animal.getRow();
+            int col = animal.getCol();
+            checkpoint.species[i] = (byte) animal.getSpecies().getCode();
+            checkpoint.flags[i] = (byte) ((animal.getIsFemale() ? FEMALE : 0)
+                                          | (field.getObjectAt(row, col) == animal ? PLACED : 0));
+            checkpoint.ids[i] = animal.getId();
+            checkpoint.rows[i] = row;
+            checkpoint.cols[i] = col;
+            checkpoint.ages[i] = animal.getAge();
+            checkpoint.foodLevels[i] = animal.getFoodLevel();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Recreate the animals in a field, which is cleared first.
+     * @param field An empty field of the checkpoint's size.
+     * @param animals A list to receive the animals that act, in order.
+     */
+    void restore(Field field, List<Animal> animals)
+    {
+        Animal[] all = new Animal[species.length];
+        for(int i = 0; i < all.length; i++) {
+            all[i] = Species.fromCode(species[i]).create(field, Location.pack(rows[i], cols[i]), false);
+            all[i].restore(ids[i], (flags[i] & FEMALE) != 0, ages[i], foodLevels[i]);
+        }
+        // Creating an animal places it, so now put each cell's own
+        // occupant back where several animals share a location.
+        field.clear();
+        for(int i = 0; i < all.length; i++) {
+            if((flags[i] & PLACED) != 0) {
+                field.place(all[i], rows[i], cols[i]);
+            }
+        }
+        for(int i = 0; i < listed; i++) {
+            animals.add(all[i]);
+        }
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return The last step run before the checkpoint was taken.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return Whether it was day when the checkpoint was taken.
+     */
+    public boolean isDay()
+    {
+        return isDay;
+    }
+
+    /**
+     * @return Whether animals aged lazily in the run.
+     */
+    public boolean isLazyAging()
+    {
+        return lazyAging;
+    }
+
+    /**
+     * @return The configuration of the run.
+     */
+    public SimulatorConfig getConfig()
+    {
+        SimulatorConfig config = new SimulatorConfig().withSeed(seed);
+        for(Species kind : Species.values()) {
+            if(kind != Species.OTHER) {
+                config = config.withCreationProbability(kind, probabilities[kind.getCode()]);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Write the checkpoint to a file, replacing it if it exists.
+     * @param file The file to write.
+     * @param compress Whether to GZIP-compress the file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file, boolean compress) throws IOException
+    {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            if(compress) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                writeTo(Channels.newChannel(gzip));
+                gzip.finish();
+            }
+            else {
+                writeTo(channel);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the checkpoint to a file on a background thread. Checkpoints
+     * are written one at a time, in the order requested.
+     * @param file The file to write.
+     * @param compress Whether to GZIP-compress the file.
+     * @return A future that completes when the file has been written, or
+     *         completes exceptionally if it could not be.
+     */
+    public CompletableFuture<Path> writeAsync(Path file, boolean compress)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write(file, compress);
+                return file;
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    /**
+     * Read a checkpoint from a file written by write.
+     * @param file The file to read.
+     * @return The checkpoint.
+     * @throws IOException If the file cannot be read or is not a checkpoint.
+     */
+    public static Checkpoint read(Path file) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(2);
+            channel.read(start, 0);
+            boolean compressed = start.position() == 2 && start.getShort(0) == (short) GZIP_MAGIC;
+            if(compressed) {
+                InputStream gzip = new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+                return readFrom(Channels.newChannel(gzip));
+            }
+            else {
+                return readFrom(channel);
+            }
+        }
+    }
+
+    /**
+     * Write the checkpoint to a channel.
+     * @param channel Where to write.
+     * @throws IOException If it cannot be written.
+     */
+    private void writeTo(WritableByteChannel channel) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(depth).putInt(width).putInt(step).put((byte) (isDay ? 1 : 0))
+              .put((byte) (lazyAging ? 1 : 0)).putLong(seed);
+        buffer.putInt(probabilities.length);
+        for(double probability : probabilities) {
+            buffer.putDouble(probability);
+        }
+        buffer.putInt(species.length).putInt(listed);
+        for(int i = 0; i < species.length; i++) {
+            if(buffer.remaining() < ANIMAL_BYTES) {
+                drain(buffer, channel);
+            }
+            buffer.put(species[i]).put(flags[i]).putLong(ids[i]).putInt(rows[i]).putInt(cols[i])
+                  .putInt(ages[i]).putInt(foodLevels[i]);
+        }
+        drain(buffer, channel);
+    }
+
+    /**
+     * Read a checkpoint from a channel.
+     * @param channel Where to read.
+     * @return The checkpoint.
+     * @throws IOException If it cannot be read or is not a checkpoint.
+     */
+    private static Checkpoint readFrom(ReadableByteChannel channel) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        fill(buffer, channel, 8);
+        if(buffer.getInt() != MAGIC) {
+            throw new IOException("Not a checkpoint file");
+        }
+        int version = buffer.getInt();
+        if(version != 1 && version != VERSION) {
+            throw new IOException("Unsupported checkpoint version: " + version);
+        }
+        fill(buffer, channel, 4 * 3 + 1 + (version == 1 ? 0 : 1) + 8 + 4);
+        int depth = buffer.getInt();
+        int width = buffer.getInt();
+        int step = buffer.getInt();
+        boolean isDay = buffer.get() != 0;
+        boolean lazyAging = version != 1 && buffer.get() != 0;
+        long seed = buffer.getLong();
+        int codes = buffer.getInt();
+        if(codes != Species.codeCount()) {
+            throw new IOException("Checkpoint has " + codes + " species codes, expected " + Species.codeCount());
+        }
+        double[] probabilities = new double[codes];
+        fill(buffer, channel, 8 * codes + 8);
+        for(int code = 0; code < codes; code++) {
+            probabilities[code] = buffer.getDouble();
+        }
+        int animals = buffer.getInt();
+        int listed = buffer.getInt();
+        Checkpoint checkpoint = new Checkpoint(depth, width, step, isDay, lazyAging, seed, probabilities,
+                                               listed, animals);
+        for(int i = 0; i < animals; i++) {
+            fill(buffer, channel, ANIMAL_BYTES);
+            checkpoint.species[i] = buffer.get();
+            checkpoint.flags[i] = buffer.get();
+            checkpoint.ids[i] = buffer.getLong();
+            checkpoint.rows[i] = buffer.getInt();
+            checkpoint.cols[i] = buffer.getInt();
+            checkpoint.ages[i] = buffer.getInt();
+            checkpoint.foodLevels[i] = buffer.getInt();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Write out everything in a buffer and empty it.
+     * @param buffer The buffer, being filled.
+     * @param channel Where to write.
+     * @throws IOException If it cannot be written.
+     */
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Make sure a buffer has at least the given number of bytes to read.
+     * @param buffer The buffer, being read.
+     * @param channel Where to read more from.
+     * @param bytes The number of bytes needed.
+     * @throws IOException If the channel ends first.
+     */
+    private static void fill(ByteBuffer buffer, ReadableByteChannel channel, int bytes) throws IOException
+    {
+        if(buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while(buffer.position() < bytes) {
+            if(channel.read(buffer) < 0) {
+                throw new IOException("Checkpoint file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -1,6 +1,4 @@
 import java.util.List;
-import java.util.Iterator;
-import java.util.Random;
 
 /**
  * A simple model of a Darkseeker.
@@ -24,16 +22,8 @@ public class Darkseeker extends Animal
     // The food value of a single Human. In effect, this is the
     // number of steps a Darkseeker can go before it has to eat again.
     private static final int Human_FOOD_VALUE = 15;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
     private static final double FEMALE_PROBABILITY = 0.5; 
 
-    // Individual characteristics (instance fields).
-    // The Darkseeker's age.
-    private int age;
-    // The Darkseeker's food level, which is increased by eating Humans.
-    private int foodLevel;
-
     /**
      * Create a Darkseeker. A Darkseeker can be created as a new born (age zero
      * and not hungry) or with a random age and food level.
@@ -43,21 +33,50 @@ public class Darkseeker extends Animal
      * @param location The location within the field.
      */
     public Darkseeker(boolean randomAge, Field field, Location location)
+    {
+        this(randomAge, field, location.pack());
+    }
+
+    /**
+     * Create a Darkseeker at a packed location, as the constructor above does.
+     * @param randomAge If true, the Darkseeker will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    Darkseeker(boolean randomAge, Field field, long location)
     {
         super(field, location);
+        initialize(randomAge);
+    }
+
+    /**
+     * Create a Darkseeker that is not alive and is in no field, for the state
+     * of one kept in a PopulationStore to be loaded into.
+     */
+    Darkseeker()
+    {
+    }
+
+    /**
+     * Give the Darkseeker its age, food level and sex.
+     * @param randomAge If true, the Darkseeker will have a random age and
+     *                  food level; otherwise those of a new born.
+     */
+    void initialize(boolean randomAge)
+    {
+        RandomStream rand = Randomizer.current();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
-            foodLevel = rand.nextInt(Human_FOOD_VALUE);
+            setAge(rand.nextInt(MAX_AGE));
+            setFoodLevel(rand.nextInt(Human_FOOD_VALUE));
         }
         else {
-            age = 0;
-            foodLevel = Human_FOOD_VALUE;
+            setFoodLevel(Human_FOOD_VALUE);
         }
         if(rand.nextDouble() <= FEMALE_PROBABILITY) { 
             super.isFemale  = true; 
         } else { 
             super.isFemale = false;                        
-        } 
+        }
     }
 
     /**
@@ -69,94 +88,99 @@ public class Darkseeker extends Animal
      */
     public void act(List<Animal> newDarkseekers, boolean isDay)
     {
-        incrementAge();
-        incrementHunger();
+        checkLifespan();
         if(isAlive()&&!isDay) {
-            giveBirth(newDarkseekers);            
-            // Move towards a source of food if found.
-            Location newLocation = findFood();
-            if(newLocation == null) { 
-                // No food found - try to move to a free location.
-                newLocation = getField().freeAdjacentLocation(getLocation());
-            }
-            move();
+            NeighbourhoodSummary around = getField().summarize(getRow(), getCol());
+            giveBirth(newDarkseekers, around);            
+            // Eat any adjacent food, then try to move to a free location.
+            findFood(around);
+            move(around);
         }
     }
 
     /**
-     * Increase the age. This could result in the Darkseeker's death.
+     * @return The Darkseeker species.
      */
-    private void incrementAge()
+    public Species getSpecies()
     {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
+        return Species.DARKSEEKER;
     }
 
     /**
-     * Make this Darkseeker more hungry. This could result in the Darkseeker's death.
+     * @return The age to which a Darkseeker can live.
      */
-    private void incrementHunger()
+    int getMaxAge()
     {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
-        }
+        return MAX_AGE;
+    }
+
+    /**
+     * Set the Darkseeker's age and food level, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel The food level.
+     */
+    void restoreState(int age, int foodLevel)
+    {
+        setAge(age);
+        setFoodLevel(foodLevel);
     }
 
     /**
      * Look for Humans adjacent to the current location.
      * Only the first live Human is eaten.
-     * @return Where food was found, or null if it wasn't.
+     * @param around The Darkseeker's neighbourhood.
+     * @return Where food was found, packed, or Location.NOWHERE if it
+     *         wasn't.
      */
-    private Location findFood()
+    private long findFood(NeighbourhoodSummary around)
     {
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Human) {
-                Human Human = (Human) animal;
-                if(Human.isAlive()) { 
-                    Human.setDead();
-                    foodLevel += Human_FOOD_VALUE;
-                    return where;
-                }
+        int humans = around.getMask(Species.HUMAN);
+        while(humans != 0) {
+            int neighbour = around.choose(humans);
+            humans &= ~(1 << neighbour);
+            Human Human = (Human) around.getObject(neighbour);
+            if(Human.isAlive()) { 
+                Human.setDead(DeathCause.PREDATION);
+                around.vacate(neighbour);
+                feed(Human_FOOD_VALUE);
+                return around.getPackedLocation(neighbour);
             }
         }
-        return null;
+        return Location.NOWHERE;
     }
 
     /**
      * Check whether or not this Darkseeker is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param newDarkseekers A list to return newly born Darkseekers.
+     * @param around The Darkseeker's neighbourhood.
      */
-    private void giveBirth(List<Animal> newDarkseekers)
+    private void giveBirth(List<Animal> newDarkseekers, NeighbourhoodSummary around)
     {
-        // New Darkseekers are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        List<Location> free = getField().getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            Darkseeker young = new Darkseeker(false, getField(), loc);
-            newDarkseekers.add(young);
+        // New Darkseekers are born into adjacent free locations.
+        int births = breed(around);
+        if(births > 0) {
+            Field field = getField();
+            for(int b = 0; b < births && around.hasFree(); b++) {
+                Animal young = field.getAnimalPool().obtain(Species.DARKSEEKER, field,
+                                                            around.takeFree(Species.DARKSEEKER));
+                field.getEvents().recordBirth(Species.DARKSEEKER);
+                newDarkseekers.add(young);
+            }
         }
     }
 
     /**
      * Generate a number representing the number of births,
      * if it can breed.
+     * @param around The Darkseeker's neighbourhood.
      * @return The number of births (may be zero).
      */
-    private int breed()
+    private int breed(NeighbourhoodSummary around)
     {
+        RandomStream rand = Randomizer.current();
         int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
+        if(canBreed(around) && rand.nextDouble() <= BREEDING_PROBABILITY) {
             births = rand.nextInt(MAX_LITTER_SIZE) + 1;
         }
         return births;
@@ -164,18 +188,16 @@ public class Darkseeker extends Animal
 
     /**
      * A Darkseeker can breed if it has reached the breeding age.
+     * @param around The Darkseeker's neighbourhood.
      */
-    private boolean canBreed() { 
-        List<Location> adjacent = getField().adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = getField().getObjectAt(where);
-            if(animal instanceof Darkseeker) {
-                Darkseeker darkseeker = (Darkseeker) animal;
-                if(age >= BREEDING_AGE && (darkseeker.getIsFemale() && !this.getIsFemale()) || (!darkseeker.getIsFemale() && this.getIsFemale()) ) {
-                    return true; 
-                }
+    private boolean canBreed(NeighbourhoodSummary around) { 
+        int mates = around.getMask(Species.DARKSEEKER);
+        while(mates != 0) {
+            int neighbour = Integer.numberOfTrailingZeros(mates);
+            mates &= mates - 1;
+            Darkseeker darkseeker = (Darkseeker) around.getObject(neighbour);
+            if(getAge() >= BREEDING_AGE && (darkseeker.getIsFemale() && !this.getIsFemale()) || (!darkseeker.getIsFemale() && this.getIsFemale()) ) {
+                return true; 
             }
         }
         return false;
@@ -0,0 +1,19 @@
+/**
+ * The ways in which an animal can die.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public enum DeathCause
+{
+    // It lived past the maximum age of its species.
+    OLD_AGE,
+    // Its food level ran out.
+    STARVATION,
+    // It had nowhere free to move to.
+    OVERCROWDING,
+    // It was eaten.
+    PREDATION,
+    // It was turned into an InfectedHuman.
+    INFECTION
+}
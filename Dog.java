@@ -1,6 +1,4 @@
 import java.util.List;
-import java.util.Random;
-import java.util.Iterator;
 
 /**
  * A simple model of a Dog.
@@ -21,15 +19,8 @@ public class Dog extends Animal
     private static final double BREEDING_PROBABILITY = 0.14;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 6;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
     private static final double FEMALE_PROBABILITY = 0.5; 
 
-    // Individual characteristics (instance fields).
-    
-    // The Dog's age.
-    private int age;
-
     /**
      * Create a new Dog. A Dog may be created with age
      * zero (a new born) or with a random age.
@@ -39,17 +30,46 @@ public class Dog extends Animal
      * @param location The location within the field.
      */
     public Dog(boolean randomAge, Field field, Location location)
+    {
+        this(randomAge, field, location.pack());
+    }
+
+    /**
+     * Create a Dog at a packed location, as the constructor above does.
+     * @param randomAge If true, the Dog will have a random age.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    Dog(boolean randomAge, Field field, long location)
     {
         super(field, location);
-        age = 0;
+        initialize(randomAge);
+    }
+
+    /**
+     * Create a Dog that is not alive and is in no field, for the state
+     * of one kept in a PopulationStore to be loaded into.
+     */
+    Dog()
+    {
+    }
+
+    /**
+     * Give the Dog its age and sex.
+     * @param randomAge If true, the Dog will have a random age;
+     *                  otherwise that of a new born.
+     */
+    void initialize(boolean randomAge)
+    {
+        RandomStream rand = Randomizer.current();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
+            setAge(rand.nextInt(MAX_AGE));
         }
         if(rand.nextDouble() <= FEMALE_PROBABILITY) { 
            super.isFemale  = true; 
         } else { 
             super.isFemale = false;                        
-        } 
+        }
     }
     
     /**
@@ -59,61 +79,73 @@ public class Dog extends Animal
      */
     public void act(List<Animal> newDogs, boolean isDay)
     {
-        incrementAge();
+        checkLifespan();
         if(isAlive()&&isDay) {
-            giveBirth(newDogs);            
+            NeighbourhoodSummary around = getField().summarize(getRow(), getCol());
+            giveBirth(newDogs, around);            
             // Try to move into a free location.
-            Location newLocation = getField().freeAdjacentLocation(getLocation());
-            if(newLocation != null) {
-                setLocation(newLocation);
-            }
-            else {
-                // Overcrowding.
-                setDead();
-            }
+            move(around);
         }
     }
 
     /**
-     * Increase the age.
-     * This could result in the Dog's death.
+     * @return The Dog species.
      */
-    private void incrementAge()
+    public Species getSpecies()
     {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
+        return Species.DOG;
     }
-    
+
+    /**
+     * @return The age to which a Dog can live.
+     */
+    int getMaxAge()
+    {
+        return MAX_AGE;
+    }
+
+    /**
+     * Set the Dog's age, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel Ignored; a Dog has no food level.
+     */
+    void restoreState(int age, int foodLevel)
+    {
+        setAge(age);
+    }
+
     /**
      * Check whether or not this Dog is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param newDogs A list to return newly born Dogs.
+     * @param around The Dog's neighbourhood.
      */
-    private void giveBirth(List<Animal> newDogs)
+    private void giveBirth(List<Animal> newDogs, NeighbourhoodSummary around)
     {
-        // New Dogs are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            Dog young = new Dog(false, field, loc);
-            newDogs.add(young);
+        // New Dogs are born into adjacent free locations.
+        int births = breed(around);
+        if(births > 0) {
+            Field field = getField();
+            for(int b = 0; b < births && around.hasFree(); b++) {
+                Animal young = field.getAnimalPool().obtain(Species.DOG, field,
+                                                            around.takeFree(Species.DOG));
+                field.getEvents().recordBirth(Species.DOG);
+                newDogs.add(young);
+            }
         }
     }
         
     /**
      * Generate a number representing the number of births,
      * if it can breed.
+     * @param around The Dog's neighbourhood.
      * @return The number of births (may be zero).
      */
-    private int breed()
+    private int breed(NeighbourhoodSummary around)
     {
+        RandomStream rand = Randomizer.current();
         int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
+        if(canBreed(around) && rand.nextDouble() <= BREEDING_PROBABILITY) {
             births = rand.nextInt(MAX_LITTER_SIZE) + 1;
         }
         return births;
@@ -121,25 +153,22 @@ public class Dog extends Animal
 
     /**
      * A Dog can breed if it has reached the breeding age.
+     * @param around The Dog's neighbourhood.
      * @return true if the Dog can breed, false otherwise.
      */
-    private boolean canBreed() { 
+    private boolean canBreed(NeighbourhoodSummary around) { 
     
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Dog) {
-                Dog dog = (Dog) animal;
+        int mates = around.getMask(Species.DOG);
+        while(mates != 0) {
+            int neighbour = Integer.numberOfTrailingZeros(mates);
+            mates &= mates - 1;
+            Dog dog = (Dog) around.getObject(neighbour);
         
-                if(age >= BREEDING_AGE && (dog.getIsFemale() && !this.getIsFemale()) || (!dog.getIsFemale() && this.getIsFemale()) ) {
+            if(getAge() >= BREEDING_AGE && (dog.getIsFemale() && !this.getIsFemale()) || (!dog.getIsFemale() && this.getIsFemale()) ) {
                 return true; 
+            }
         }
-    }
-    }
-                return false;
+        return false;
         
         
     }
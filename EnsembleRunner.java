@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run an ensemble of independent headless simulations concurrently, one
+ * per configuration, and gather statistics of their populations.
+ *
+ * Each simulation has its own field, animals and configuration, and
+ * every random decision is keyed from its own seed, so the runs do not
+ * affect each other and each gives the same result as it would alone.
+ * Each worker thread takes runs from a shared queue and records every
+ * step of them into its own EnsembleStatistics as it goes; the workers'
+ * statistics are merged once all runs are done.
+ *
+ * Usage: EnsembleRunner runs steps [species p1,p2,...]
+ *     runs     the number of seeds to run each configuration with.
+ *     steps    the number of steps in each run.
+ *     species  optionally, a species whose creation probability is
+ *              swept over the given values, e.g. HUMAN 0.02,0.04,0.08.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class EnsembleRunner
+{
+    // The number of lines of per-step statistics printed by main.
+    private static final int REPORT_LINES = 10;
+    // The summary of the arguments printed when they are not understood.
+    private static final String USAGE = "Usage: EnsembleRunner runs steps [species p1,p2,...]";
+
+    // The size of every simulated field.
+    private final int depth, width;
+    // The number of steps in each run.
+    private final int steps;
+    // The number of runs to carry out at once.
+    private final int threads;
+
+    /**
+     * Create a runner for runs of the given size and length, using every
+     * available processor.
+     * @param depth Depth of each field.
+     * @param width Width of each field.
+     * @param steps The number of steps in each run.
+     */
+    public EnsembleRunner(int depth, int width, int steps)
+    {
+        this(depth, width, steps, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a runner for runs of the given size and length.
+     * @param depth Depth of each field.
+     * @param width Width of each field.
+     * @param steps The number of steps in each run.
+     * @param threads The number of runs to carry out at once.
+     */
+    public EnsembleRunner(int depth, int width, int steps, int threads)
+    {
+        if(steps < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Bad steps or threads: " + steps + ", " + threads);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.steps = steps;
+        this.threads = threads;
+    }
+
+    /**
+     * Run one simulation for each configuration and gather the
+     * statistics of all of them.
+     * @param configs The configurations to run.
+     * @return The statistics over all the runs.
+     */
+    public EnsembleStatistics run(List<SimulatorConfig> configs)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, configs.size())));
+        try {
+            AtomicInteger next = new AtomicInteger();
+            List<Future<EnsembleStatistics>> workers = new ArrayList<>();
+            for(int i = 0; i < threads && i < configs.size(); i++) {
+                workers.add(pool.submit(() -> {
+                    EnsembleStatistics statistics = new EnsembleStatistics(steps);
+                    int run;
+                    while((run = next.getAndIncrement()) < configs.size()) {
+                        runOne(configs.get(run), statistics);
+                    }
+                    return statistics;
+                }));
+            }
+            EnsembleStatistics total = new EnsembleStatistics(steps);
+            for(Future<EnsembleStatistics> worker : workers) {
+                total.merge(worker.get());
+            }
+            return total;
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the ensemble", e);
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("A run of the ensemble failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Return copies of a configuration with consecutive seeds.
+     * @param base The configuration to copy.
+     * @param firstSeed The seed of the first copy.
+     * @param runs The number of copies.
+     * @return The copies.
+     */
+    public static List<SimulatorConfig> seeds(SimulatorConfig base, long firstSeed, int runs)
+    {
+        List<SimulatorConfig> configs = new ArrayList<>(runs);
+        for(int i = 0; i < runs; i++) {
+            configs.add(base.withSeed(firstSeed + i));
+        }
+        return configs;
+    }
+
+    /**
+     * Carry out one run, recording its starting state and every step.
+     * @param config The configuration of the run.
+     * @param statistics Where to record it.
+     */
+    private void runOne(SimulatorConfig config, EnsembleStatistics statistics)
+    {
+        Simulator simulator = new Simulator(depth, width, config, null);
+        Field field = simulator.getField();
+        Species[] all = Species.values();
+        boolean[] present = new boolean[all.length];
+        for(Species species : all) {
+            present[species.ordinal()] = field.getCount(species) > 0;
+        }
+        statistics.record(0, field);
+        for(int step = 1; step <= steps; step++) {
+            simulator.simulateOneStep();
+            statistics.record(step, field);
+            for(Species species : all) {
+                if(present[species.ordinal()] && field.getCount(species) == 0) {
+                    present[species.ordinal()] = false;
+                    statistics.recordExtinction(species, step);
+                }
+            }
+        }
+        statistics.runFinished();
+    }
+
+    /**
+     * Run an ensemble, or a sweep of ensembles, on a default-sized field
+     * and print a summary of each.
+     * @param args The runs, the steps and optionally a sweep.
+     */
+    public static void main(String[] args)
+    {
+        if(args.length != 2 && args.length != 4) {
+            usage("Expected 2 or 4 arguments, not " + args.length);
+            return;
+        }
+        int runs = count(args[0]);
+        if(runs < 1) {
+            usage("Not a number of runs: " + args[0]);
+            return;
+        }
+        int steps = count(args[1]);
+        if(steps < 0) {
+            usage("Not a number of steps: " + args[1]);
+            return;
+        }
+        SimulatorConfig base = new SimulatorConfig();
+        List<SimulatorConfig> variants = new ArrayList<>();
+        if(args.length == 4) {
+            Species species;
+            try {
+                species = Species.valueOf(args[2]);
+            }
+            catch(IllegalArgumentException e) {
+                usage("Not a species: " + args[2]);
+                return;
+            }
+            for(String value : args[3].split(",")) {
+                try {
+                    variants.add(base.withCreationProbability(species, Double.parseDouble(value)));
+                }
+                catch(IllegalArgumentException e) {
+                    usage("Not a probability: " + value);
+                    return;
+                }
+            }
+        }
+        else {
+            variants.add(base);
+        }
+
+        EnsembleRunner runner = new EnsembleRunner(80, 120, steps);
+        for(SimulatorConfig variant : variants) {
+            long start = System.nanoTime();
+            EnsembleStatistics statistics = runner.run(seeds(variant, variant.getSeed(), runs));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(variant + ": " + statistics.getRuns() + " runs in " + millis + " ms");
+            print(statistics);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Read a count from the command line.
+     * @param arg The argument.
+     * @return The count, or -1 if the argument is not a whole number
+     *         of at least zero.
+     */
+    private static int count(String arg)
+    {
+        try {
+            return Math.max(-1, Integer.parseInt(arg));
+        }
+        catch(NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Print what was wrong with the arguments and how to use the
+     * runner.
+     * @param problem What was wrong.
+     */
+    private static void usage(String problem)
+    {
+        System.out.println(problem);
+        System.out.println(USAGE);
+    }
+
+    /**
+     * Print the mean and standard deviation of each population at
+     * evenly spaced steps, then the extinctions.
+     * @param statistics The statistics to print.
+     */
+    private static void print(EnsembleStatistics statistics)
+    {
+        Species[] animals = { Species.HUMAN, Species.DARKSEEKER, Species.DOG,
+                              Species.MUTANT_DOG, Species.INFECTED_HUMAN };
+        StringBuilder header = new StringBuilder(String.format("%8s", "step"));
+        for(Species species : animals) {
+            header.append(String.format(" %22s", species.getName()));
+        }
+        System.out.println(header);
+        int interval = Math.max(1, statistics.getSteps() / REPORT_LINES);
+        for(int step = 0; step <= statistics.getSteps(); step += interval) {
+            StringBuilder line = new StringBuilder(String.format("%8d", step));
+            for(Species species : animals) {
+                line.append(String.format(" %12.1f +/- %7.1f", statistics.getMean(step, species),
+                                          Math.sqrt(statistics.getVariance(step, species))));
+            }
+            System.out.println(line);
+        }
+        for(Species species : animals) {
+            long extinctions = statistics.getExtinctions(species);
+            if(extinctions > 0) {
+                System.out.println(String.format("%s died out in %d runs, at step %.1f +/- %.1f",
+                                                 species.getName(), extinctions,
+                                                 statistics.getMeanExtinctionStep(species),
+                                                 Math.sqrt(statistics.getExtinctionStepVariance(species))));
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Population statistics gathered over an ensemble of simulation runs:
+ * for every step and species the mean and variance of the population
+ * across runs, and for every species how many runs it died out in and
+ * the mean and variance of the step at which it did.
+ *
+ * The statistics are accumulated one value at a time with Welford's
+ * method, so nothing is kept per run, and two sets gathered separately
+ * (e.g. on different threads) can be merged.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class EnsembleStatistics
+{
+    // The number of species codes, and so of values per step.
+    private static final int CODES = Species.codeCount();
+    // The last step recorded; steps run from 0 (the starting state).
+    private final int steps;
+    // The number of runs recorded.
+    private int runs;
+    // Count, mean and sum of squared deviations of each species'
+    // population, indexed by step * CODES + species code.
+    private final long[] counts;
+    private final double[] means;
+    private final double[] squares;
+    // The same for the step at which each species died out, indexed by
+    // species code.
+    private final long[] extinctionCounts;
+    private final double[] extinctionMeans;
+    private final double[] extinctionSquares;
+
+    /**
+     * Create empty statistics for runs of the given length.
+     * @param steps The number of steps in each run.
+     */
+    public EnsembleStatistics(int steps)
+    {
+        this.steps = steps;
+        int size = (steps + 1) * CODES;
+        counts = new long[size];
+        means = new double[size];
+        squares = new double[size];
+        extinctionCounts = new long[CODES];
+        extinctionMeans = new double[CODES];
+        extinctionSquares = new double[CODES];
+    }
+
+    /**
+     * Record the population of every species in a field at some step.
+     * @param step The step, from 0 to the number of steps.
+     * @param field The field.
+     */
+    void record(int step, Field field)
+    {
+        int base = step * CODES;
+        for(Species species : Species.values()) {
+            add(counts, means, squares, base + species.getCode(), field.getCount(species));
+        }
+    }
+
+    /**
+     * Record that a species died out during a run.
+     * @param species The species.
+     * @param step The first step at which there were none left.
+     */
+    void recordExtinction(Species species, int step)
+    {
+        add(extinctionCounts, extinctionMeans, extinctionSquares, species.getCode(), step);
+    }
+
+    /**
+     * Record that a run has been completely recorded.
+     */
+    void runFinished()
+    {
+        runs++;
+    }
+
+    /**
+     * Add statistics gathered separately into these.
+     * @param other Statistics for runs of the same length.
+     */
+    public void merge(EnsembleStatistics other)
+    {
+        if(other.steps != steps) {
+            throw new IllegalArgumentException("Runs of " + other.steps
+                                               + " steps cannot be merged with runs of " + steps);
+        }
+        for(int i = 0; i < counts.length; i++) {
+            merge(counts, means, squares, i, other.counts[i], other.means[i], other.squares[i]);
+        }
+        for(int i = 0; i < extinctionCounts.length; i++) {
+            merge(extinctionCounts, extinctionMeans, extinctionSquares, i,
+                  other.extinctionCounts[i], other.extinctionMeans[i], other.extinctionSquares[i]);
+        }
+        runs += other.runs;
+    }
+
+    /**
+     * @return The number of runs recorded.
+     */
+    public int getRuns()
+    {
+        return runs;
+    }
+
+    /**
+     * @return The number of steps in each run.
+     */
+    public int getSteps()
+    {
+        return steps;
+    }
+
+    /**
+     * @param step The step, from 0 to the number of steps.
+     * @param species The species.
+     * @return The mean population of the species at that step.
+     */
+    public double getMean(int step, Species species)
+    {
+        return means[step * CODES + species.getCode()];
+    }
+
+    /**
+     * @param step The step, from 0 to the number of steps.
+     * @param species The species.
+     * @return The sample variance of the population of the species at
+     *         that step, or 0 for fewer than two runs.
+     */
+    public double getVariance(int step, Species species)
+    {
+        int index = step * CODES + species.getCode();
+        return variance(counts[index], squares[index]);
+    }
+
+    /**
+     * @param species The species.
+     * @return The number of runs in which the species died out.
+     */
+    public long getExtinctions(Species species)
+    {
+        return extinctionCounts[species.getCode()];
+    }
+
+    /**
+     * @param species The species.
+     * @return The mean step at which the species died out, over the runs
+     *         in which it did, or NaN if it never did.
+     */
+    public double getMeanExtinctionStep(Species species)
+    {
+        int code = species.getCode();
+        return extinctionCounts[code] > 0 ? extinctionMeans[code] : Double.NaN;
+    }
+
+    /**
+     * @param species The species.
+     * @return The sample variance of the step at which the species died
+     *         out, or 0 if it did so in fewer than two runs.
+     */
+    public double getExtinctionStepVariance(Species species)
+    {
+        int code = species.getCode();
+        return variance(extinctionCounts[code], extinctionSquares[code]);
+    }
+
+    /**
+     * Add one value to a running mean and variance.
+     * @param n The counts of values.
+     * @param mean The running means.
+     * @param m2 The running sums of squared deviations from the mean.
+     * @param i Which statistic to add to.
+     * @param value The value to add.
+     */
+    private static void add(long[] n, double[] mean, double[] m2, int i, double value)
+    {
+        n[i]++;
+        double delta = value - mean[i];
+        mean[i] += delta / n[i];
+        m2[i] += delta * (value - mean[i]);
+    }
+
+    /**
+     * Combine another running mean and variance into one of these.
+     * @param n The counts of values.
+     * @param mean The running means.
+     * @param m2 The running sums of squared deviations from the mean.
+     * @param i Which statistic to combine into.
+     * @param otherN The other count.
+     * @param otherMean The other mean.
+     * @param otherM2 The other sum of squared deviations.
+     */
+    private static void merge(long[] n, double[] mean, double[] m2, int i,
+                              long otherN, double otherMean, double otherM2)
+    {
+        if(otherN == 0) {
+            return;
+        }
+        long total = n[i] + otherN;
+        double delta = otherMean - mean[i];
+        mean[i] += delta * otherN / total;
+        m2[i] += otherM2 + delta * delta * n[i] * otherN / total;
+        n[i] = total;
+    }
+
+    /**
+     * @param n The number of values.
+     * @param m2 Their sum of squared deviations from the mean.
+     * @return Their sample variance, or 0 for fewer than two values.
+     */
+    private static double variance(long n, double m2)
+    {
+        return n > 1 ? m2 / (n - 1) : 0;
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only log of everything the animals of a simulation do:
+ * every birth, death (with its cause) and move, so that the field at
+ * any step can be rebuilt by an EventLogReplayer without simulating.
+ * An infection appears as the death of the Human, with cause INFECTION,
+ * followed by the birth of the InfectedHuman in its place; predation
+ * appears as the death of the prey with cause PREDATION.
+ *
+ * Add the log to a Simulator with addListener. The first time it is
+ * told about a step it writes a keyframe holding the species in every
+ * occupied cell and starts logging the field's animals; after that it writes a
+ * marker at the end of each step, and a fresh keyframe every so many
+ * steps (so a replayer can jump to them) or whenever the simulation is
+ * reset.
+ *
+ * The file starts with the magic number "SIME" and a version. Each
+ * record is a type byte followed by big-endian fields, cells being
+ * given as packed locations (see Location.pack), so that fields of any
+ * size can be logged:
+ *     KEYFRAME  step, depth, width, then the cell and species code of
+ *               each occupied cell, ended by the cell Location.NOWHERE
+ *     STEP      step
+ *     BIRTH     species code, cell
+ *     DEATH     species code, cause ordinal (-1 if unknown), cell
+ *     MOVE      from cell, to cell
+ *
+ * Records are buffered and written through a channel on whichever
+ * thread the event happens on. Appending is synchronized, so a step run
+ * by the TiledStepEngine is logged correctly, but more slowly.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class EventLog implements SimulationListener, AutoCloseable
+{
+    // Marks the start of a log file ("SIME").
+    static final int MAGIC = 0x53494D45;
+    // The version of the file layout.
+    static final int VERSION = 2;
+    // The types of record.
+    static final byte KEYFRAME = 1;
+    static final byte STEP = 2;
+    static final byte BIRTH = 3;
+    static final byte DEATH = 4;
+    static final byte MOVE = 5;
+    // The cause written for a death of unknown cause.
+    static final byte UNKNOWN_CAUSE = -1;
+    // The number of steps between keyframes by default.
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1000;
+    // The size of the write buffer.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The size of the largest record other than a keyframe.
+    private static final int MAX_RECORD = 1 + 8 + 8;
+
+    // The file being written.
+    private final FileChannel channel;
+    // Records not yet written.
+    private final ByteBuffer buffer;
+    // The number of steps between keyframes.
+    private final int keyframeInterval;
+    // The field being logged.
+    private Field field;
+    // Writes one occupied cell of a keyframe.
+    private final Field.CellVisitor cellWriter;
+    // The last step logged, and the step of the last keyframe.
+    private int lastStep;
+    private int lastKeyframe;
+
+    /**
+     * Start a log in a file, replacing it if it exists.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public EventLog(Path file) throws IOException
+    {
+        this(file, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Start a log in a file, replacing it if it exists.
+     * @param file The file to write.
+     * @param keyframeInterval The number of steps between keyframes.
+     * @throws IOException If the file cannot be written.
+     */
+    public EventLog(Path file, int keyframeInterval) throws IOException
+    {
+        if(keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        lastStep = -1;
+        cellWriter = (location, code) -> {
+            reserve(8 + 1);
+            buffer.putLong(location).put((byte) code);
+        };
+    }
+
+    /**
+     * Mark the end of a step, writing a keyframe instead when one is due.
+     * The first call starts logging the field.
+     * @param step Which iteration step it is.
+     * @param field The field.
+     * @param isDay Whether it is currently daytime.
+     */
+    @Override
+    public synchronized void showStatus(int step, Field field, boolean isDay)
+    {
+        if(field != this.field) {
+            if(this.field != null) {
+                this.field.setEventLog(null);
+            }
+            this.field = field;
+            field.setEventLog(this);
+            writeKeyframe(step);
+        }
+        else if(step <= lastStep || step - lastKeyframe >= keyframeInterval) {
+            writeKeyframe(step);
+        }
+        else {
+            reserve(MAX_RECORD);
+            buffer.put(STEP).putInt(step);
+        }
+        lastStep = step;
+    }
+
+    /**
+     * Log the birth of an animal.
+     * @param species Its species.
+     * @param location Where it was born, packed.
+     */
+    public synchronized void birth(Species species, long location)
+    {
+        reserve(MAX_RECORD);
+        buffer.put(BIRTH).put((byte) species.getCode()).putLong(location);
+    }
+
+    /**
+     * Log the death of an animal.
+     * @param species Its species.
+     * @param cause How it died, or null if not known.
+     * @param location Where it died, packed.
+     */
+    public synchronized void death(Species species, DeathCause cause, long location)
+    {
+        reserve(MAX_RECORD);
+        buffer.put(DEATH).put((byte) species.getCode())
+              .put(cause == null ? UNKNOWN_CAUSE : (byte) cause.ordinal()).putLong(location);
+    }
+
+    /**
+     * Log the move of an animal.
+     * @param from Where it was, packed.
+     * @param to Where it moved to, packed.
+     */
+    public synchronized void move(long from, long to)
+    {
+        reserve(MAX_RECORD);
+        buffer.put(MOVE).putLong(from).putLong(to);
+    }
+
+    /**
+     * Stop logging the field, write every record and close the file.
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if(field != null) {
+            field.setEventLog(null);
+            field = null;
+        }
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write a keyframe of the field, looking only at its occupied cells.
+     * @param step The step it is taken at.
+     */
+    private void writeKeyframe(int step)
+    {
+        reserve(1 + 4 * 3);
+        buffer.put(KEYFRAME).putInt(step).putInt(field.getDepth()).putInt(field.getWidth());
+        field.forEachOccupied(cellWriter);
+        reserve(8);
+        buffer.putLong(Location.NOWHERE);
+        lastKeyframe = step;
+    }
+
+    /**
+     * Make room in the buffer, writing it out if need be.
+     * @param bytes The room needed.
+     */
+    private void reserve(int bytes)
+    {
+        if(buffer.remaining() < bytes) {
+            try {
+                flush();
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Write out the buffer.
+     * @throws IOException If it cannot be written.
+     */
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
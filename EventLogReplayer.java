@@ -0,0 +1,272 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Rebuild the field of a simulation at any logged step by applying the
+ * records of an EventLog, rather than simulating again. The rebuilt
+ * field holds species codes only, with no animal objects, and its event
+ * tally counts the births and deaths replayed since the last keyframe.
+ * As in the simulation's own tally, the InfectedHuman that takes the
+ * place of an infected Human is not counted as a birth, although the
+ * log records it as one.
+ *
+ * Typical use:
+ *     try(EventLogReplayer replayer = new EventLogReplayer(file)) {
+ *         while(replayer.next()) {
+ *             Field field = replayer.getField();
+ *             ...
+ *         }
+ *     }
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class EventLogReplayer implements AutoCloseable
+{
+    // The size of the read buffer.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The length of the file header.
+    private static final int HEADER = 8;
+
+    // The file being read.
+    private final FileChannel channel;
+    // Bytes read from the file and not yet applied.
+    private final ByteBuffer buffer;
+    // The file position of each keyframe seen so far, by step.
+    private final TreeMap<Integer, Long> keyframes;
+    // The field as of the current step.
+    private Field field;
+    // The current step, or -1 before the first keyframe.
+    private int step;
+    // The cells of Humans infected whose InfectedHuman has not been
+    // placed yet, packed. Other records may come in between on a tiled
+    // run, but nothing else can be born into the cell first.
+    private final Set<Long> infected;
+
+    /**
+     * Open a log for replaying. Nothing is replayed until next or
+     * replayTo is called.
+     * @param file The log file.
+     * @throws IOException If it cannot be read or is not an event log.
+     */
+    public EventLogReplayer(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        keyframes = new TreeMap<>();
+        infected = new HashSet<>();
+        buffer.flip();
+        if(!fill(HEADER) || buffer.getInt() != EventLog.MAGIC) {
+            throw new IOException("Not an event log");
+        }
+        int version = buffer.getInt();
+        if(version != EventLog.VERSION) {
+            throw new IOException("Unsupported event log version: " + version);
+        }
+        step = -1;
+    }
+
+    /**
+     * Apply the records of the next step.
+     * @return true if there was another step, false at the end of the log.
+     * @throws IOException If the log cannot be read.
+     */
+    public boolean next() throws IOException
+    {
+        while(fill(1)) {
+            long position = position();
+            byte type = buffer.get();
+            switch(type) {
+                case EventLog.KEYFRAME:
+                    readKeyframe(position);
+                    return true;
+                case EventLog.STEP:
+                    need(4);
+                    step = buffer.getInt();
+                    return true;
+                case EventLog.BIRTH:
+                {
+                    need(1 + 8);
+                    Species species = Species.fromCode(buffer.get());
+                    long cell = buffer.getLong();
+                    field.place(species, 0, Location.rowOf(cell), Location.colOf(cell));
+                    if(species != Species.INFECTED_HUMAN || !infected.remove(cell)) {
+                        field.getEvents().recordBirth(species);
+                    }
+                    break;
+                }
+                case EventLog.DEATH:
+                {
+                    need(2 + 8);
+                    Species species = Species.fromCode(buffer.get());
+                    byte cause = buffer.get();
+                    long cell = buffer.getLong();
+                    field.clear(Location.rowOf(cell), Location.colOf(cell));
+                    if(cause != EventLog.UNKNOWN_CAUSE) {
+                        field.getEvents().recordDeath(species, DeathCause.values()[cause]);
+                    }
+                    if(cause == DeathCause.INFECTION.ordinal()) {
+                        infected.add(cell);
+                    }
+                    break;
+                }
+                case EventLog.MOVE:
+                {
+                    need(8 + 8);
+                    long from = buffer.getLong();
+                    long to = buffer.getLong();
+                    field.move(Location.rowOf(from), Location.colOf(from), Location.rowOf(to), Location.colOf(to));
+                    break;
+                }
+                default:
+                    throw new IOException("Corrupt event log: record type " + type + " at " + position);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replay up to the end of the given step, jumping to the nearest
+     * keyframe already seen at or before it if that is closer.
+     * @param target The step wanted.
+     * @return The field at that step.
+     * @throws IOException If the log cannot be read.
+     * @throws IllegalArgumentException If the step is not in the log.
+     */
+    public Field replayTo(int target) throws IOException
+    {
+        Map.Entry<Integer, Long> keyframe = keyframes.floorEntry(target);
+        if(target < step || (keyframe != null && keyframe.getKey() > step)) {
+            seek(keyframe != null ? keyframe.getValue() : HEADER);
+        }
+        while(step != target) {
+            if(!next() || step > target) {
+                throw new IllegalArgumentException("Step " + target + " is not in the log");
+            }
+        }
+        return field;
+    }
+
+    /**
+     * @return The step of the field, or -1 if nothing has been replayed.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The field as of the current step, or null if nothing has
+     *         been replayed. The same field is updated by later steps.
+     */
+    public Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * Close the log file.
+     * @throws IOException If it cannot be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Read a keyframe into the field.
+     * @param position The file position of the keyframe.
+     * @throws IOException If it cannot be read.
+     */
+    private void readKeyframe(long position) throws IOException
+    {
+        need(12);
+        step = buffer.getInt();
+        int depth = buffer.getInt();
+        int width = buffer.getInt();
+        keyframes.put(step, position);
+        infected.clear();
+        if(field == null || field.getDepth() != depth || field.getWidth() != width) {
+            field = new Field(depth, width);
+        }
+        else {
+            field.clear();
+        }
+        while(true) {
+            need(8);
+            long cell = buffer.getLong();
+            if(cell == Location.NOWHERE) {
+                return;
+            }
+            need(1);
+            field.place(Species.fromCode(buffer.get()), 0, Location.rowOf(cell), Location.colOf(cell));
+        }
+    }
+
+    /**
+     * @return The file position of the next byte to be applied.
+     * @throws IOException If the position cannot be found.
+     */
+    private long position() throws IOException
+    {
+        return channel.position() - buffer.remaining();
+    }
+
+    /**
+     * Continue reading from a file position.
+     * @param position The position.
+     * @throws IOException If the file cannot be read.
+     */
+    private void seek(long position) throws IOException
+    {
+        channel.position(position);
+        buffer.clear();
+        buffer.flip();
+        step = -1;
+    }
+
+    /**
+     * Make sure the buffer holds at least the given number of bytes.
+     * @param bytes The number of bytes needed.
+     * @throws IOException If the log ends first.
+     */
+    private void need(int bytes) throws IOException
+    {
+        if(!fill(bytes)) {
+            throw new IOException("Event log is truncated");
+        }
+    }
+
+    /**
+     * Try to make the buffer hold at least the given number of bytes.
+     * @param bytes The number of bytes wanted.
+     * @return false if the log ends first.
+     * @throws IOException If the file cannot be read.
+     */
+    private boolean fill(int bytes) throws IOException
+    {
+        if(buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while(buffer.position() < bytes) {
+                if(channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+        }
+        finally {
+            buffer.flip();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the births and deaths in a field, by species and,
+ * for deaths, by cause. Infections and predation are counted as deaths
+ * of the infected or eaten animal. The totals only ever grow, apart
+ * from reset, so the events of one step are the difference between the
+ * totals before and after it.
+ *
+ * Animals record events as they act, possibly on several threads at
+ * once, so the totals are adders.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class EventTally
+{
+    // The number of species codes.
+    private static final int CODES = Species.codeCount();
+    // Births, indexed by species code.
+    private final LongAdder[] births;
+    // Deaths, indexed by cause ordinal * CODES + species code.
+    private final LongAdder[] deaths;
+
+    /**
+     * Create a tally with every total zero.
+     */
+    public EventTally()
+    {
+        births = new LongAdder[CODES];
+        for(int i = 0; i < births.length; i++) {
+            births[i] = new LongAdder();
+        }
+        deaths = new LongAdder[DeathCause.values().length * CODES];
+        for(int i = 0; i < deaths.length; i++) {
+            deaths[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record the birth of an animal.
+     * @param species Its species.
+     */
+    public void recordBirth(Species species)
+    {
+        births[species.getCode()].increment();
+    }
+
+    /**
+     * Record the death of an animal.
+     * @param species Its species.
+     * @param cause How it died.
+     */
+    public void recordDeath(Species species, DeathCause cause)
+    {
+        deaths[cause.ordinal() * CODES + species.getCode()].increment();
+    }
+
+    /**
+     * @param species A species.
+     * @return The number of animals of the species born so far.
+     */
+    public long getBirths(Species species)
+    {
+        return births[species.getCode()].sum();
+    }
+
+    /**
+     * @param species A species.
+     * @param cause A cause of death.
+     * @return The number of animals of the species that have died of
+     *         that cause so far.
+     */
+    public long getDeaths(Species species, DeathCause cause)
+    {
+        return deaths[cause.ordinal() * CODES + species.getCode()].sum();
+    }
+
+    /**
+     * Set every total back to zero.
+     */
+    public void reset()
+    {
+        for(LongAdder total : births) {
+            total.reset();
+        }
+        for(LongAdder total : deaths) {
+            total.reset();
+        }
+    }
+}
@@ -1,25 +1,102 @@
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Represent a rectangular grid of field positions.
  * Each position is able to store a single animal.
  * 
+ * The grid is held in square chunks of 64 by 64 cells, each a flat,
+ * row-major int array. A chunk is only allocated when something is
+ * placed in it, and is released again by releaseEmptyChunks once it
+ * holds nothing, so a very large, mostly empty field costs memory and
+ * time in proportion to its occupants rather than its area. Each
+ * occupied cell holds the species code of its occupant in the top four
+ * bits and an entity index in the low 28 bits, so neighbour scans touch
+ * contiguous arrays and species checks are integer compares. Objects
+ * placed through place(Object, ...) are also kept in a parallel array
+ * per chunk, which backs the getObjectAt view; stores that keep their
+ * own entities can place species codes and entity indices directly
+ * instead, and while they let the animals act, hand getObjectAt an
+ * EntityResolver to find objects for them.
+ * 
+ * The field also keeps a running count of the occupants of each species,
+ * updated as cells are written, so population counts never need a scan,
+ * and remembers which cells have been written since the changes were
+ * last drained, so a view need only redraw those.
+ * 
+ * Alongside the cells each chunk keeps a bitboard per species code
+ * (EMPTY's board marking the free cells): one word per row of the
+ * chunk, one bit per cell. Asking which of a cell's Moore neighbours
+ * hold a species, or are free, then reads three short runs of bits
+ * instead of eight cells, and counting them is a popcount.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class Field
 {
-    // A random number generator for providing random locations.
-    private static final Random rand = Randomizer.getRandom();
+    // Bit position of the species code within a cell.
+    private static final int SPECIES_SHIFT = 28;
+    // The largest entity index that can be stored in a cell.
+    public static final int MAX_ENTITY = (1 << SPECIES_SHIFT) - 1;
+    // The log of the number of rows and columns in a chunk; a row of a
+    // chunk is one word of a bitboard.
+    private static final int CHUNK_SHIFT = 6;
+    // The number of rows and columns in a chunk, the mask that takes a
+    // row or column within its chunk, and the number of cells in a chunk.
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    // Each thread's neighbourhood cursor handed out by neighbours(), its
+    // cursor used by this class's own adjacency methods and its summary
+    // handed out by summarize(). They are shared by every field and bound
+    // to the one asking, so that a thread holds on to no field but the
+    // last it looked at.
+    private static final ThreadLocal<Neighbourhood> NEIGHBOURS = ThreadLocal.withInitial(Neighbourhood::new);
+    private static final ThreadLocal<Neighbourhood> SCRATCH = ThreadLocal.withInitial(Neighbourhood::new);
+    private static final ThreadLocal<NeighbourhoodSummary> SUMMARIES = ThreadLocal.withInitial(NeighbourhoodSummary::new);
     
     // The depth and width of the field.
     private int depth, width;
-    // Storage for the animals.
-    private Object[][] field;
+    // The number of chunks across the field.
+    private final int chunkCols;
+    // Every chunk of the field, row-major; null where a chunk holds
+    // nothing. A chunk's fields are final, so a chunk allocated by one
+    // thread is seen whole by any other that finds it here.
+    private final Chunk[] chunks;
+    // The chunks allocated, in no particular order.
+    private final List<Chunk> live;
+    // The changes not yet drained from chunks that have been released,
+    // by chunk index, one bit per cell of the chunk.
+    private final Map<Integer, long[]> releasedChanges;
+    // Whether every cell is to be reported by the next drain.
+    private boolean allChanged;
+    // Whether changes have ever been drained. Until they are, the
+    // changes in a released chunk need not be kept.
+    private boolean draining;
+    // The number of cells occupied by each species, indexed by code.
+    // Adders, because cells may be written by several threads at once.
+    private final LongAdder[] counts;
+    // The births and deaths of the animals in the field.
+    private final EventTally events;
+    // The dead animals kept for the young born in the field.
+    private final AnimalPool pool;
+    // Where the animals log what they do, or null if nothing is logged.
+    private EventLog eventLog;
+    // What getObjectAt finds the objects of entities placed by index
+    // with, or null.
+    private EntityResolver resolver;
+    // The step being run, or the last step run, by which the animals
+    // in the field tell their age and how hungry they are.
+    private int step;
 
     /**
      * Represent a field of the given dimensions.
@@ -30,19 +107,34 @@ public class Field
     {
         this.depth = depth;
         this.width = width;
-        field = new Object[depth][width];
+        chunkCols = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new Chunk[Math.multiplyExact((depth + CHUNK_MASK) >>> CHUNK_SHIFT, chunkCols)];
+        live = new ArrayList<>();
+        releasedChanges = new HashMap<>();
+        counts = new LongAdder[Species.codeCount()];
+        for(int code = 0; code < counts.length; code++) {
+            counts[code] = new LongAdder();
+        }
+        events = new EventTally();
+        pool = new AnimalPool();
+        allChanged = true;
     }
     
     /**
-     * Empty the field.
+     * Empty the field, releasing all of its chunks.
      */
-    public void clear()
+    public synchronized void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                field[row][col] = null;
-            }
+        for(Chunk chunk : live) {
+            chunks[chunk.index] = null;
         }
+        live.clear();
+        releasedChanges.clear();
+        for(LongAdder count : counts) {
+            count.reset();
+        }
+        allChanged = true;
+        events.reset();
     }
     
     /**
@@ -51,7 +143,17 @@ public class Field
      */
     public void clear(Location location)
     {
-        field[location.getRow()][location.getCol()] = null;
+        clear(location.getRow(), location.getCol());
+    }
+    
+    /**
+     * Clear the given cell.
+     * @param row Row coordinate of the cell.
+     * @param col Column coordinate of the cell.
+     */
+    public void clear(int row, int col)
+    {
+        setCell(row, col, 0, null);
     }
     
     /**
@@ -64,7 +166,7 @@ public class Field
      */
     public void place(Object animal, int row, int col)
     {
-        place(animal, new Location(row, col));
+        setCell(row, col, Species.of(animal).getCode() << SPECIES_SHIFT, animal);
     }
     
     /**
@@ -76,7 +178,578 @@ public class Field
      */
     public void place(Object animal, Location location)
     {
-        field[location.getRow()][location.getCol()] = animal;
+        place(animal, location.getRow(), location.getCol());
+    }
+    
+    /**
+     * Record that an entity of the given species occupies a cell,
+     * without an object. getObjectAt will return null for the cell.
+     * If there is already an animal at the location it will be lost.
+     * @param species The species of the entity.
+     * @param entity The entity's index, between 0 and MAX_ENTITY.
+     * @param row Row coordinate of the cell.
+     * @param col Column coordinate of the cell.
+     */
+    public void place(Species species, int entity, int row, int col)
+    {
+        assert entity >= 0 && entity <= MAX_ENTITY : "Entity index out of range: " + entity;
+        setCell(row, col, (species.getCode() << SPECIES_SHIFT) | entity, null);
+    }
+    
+    /**
+     * Move whatever occupies one location to another, leaving the first
+     * empty. Anything already at the destination will be lost. This
+     * is cheaper than clearing one location and placing at the other.
+     * @param from The location of the occupant.
+     * @param to Where to move it.
+     */
+    public void move(Location from, Location to)
+    {
+        move(from.getRow(), from.getCol(), to.getRow(), to.getCol());
+    }
+    
+    /**
+     * Move whatever occupies one cell to another, leaving the first
+     * empty. Anything already in the destination will be lost.
+     * @param fromRow Row coordinate of the occupant.
+     * @param fromCol Column coordinate of the occupant.
+     * @param toRow Row coordinate of the destination.
+     * @param toCol Column coordinate of the destination.
+     */
+    public void move(int fromRow, int fromCol, int toRow, int toCol)
+    {
+        if(fromRow != toRow || fromCol != toCol) {
+            Chunk source = chunk(fromRow, fromCol);
+            int value = 0;
+            Object occupant = null;
+            if(source != null) {
+                int local = local(fromRow, fromCol);
+                value = source.cells[local];
+                occupant = source.occupants[local];
+            }
+            // The occupant's own count is unchanged by the move.
+            int displaced = write(toRow, toCol, value, occupant);
+            write(fromRow, fromCol, 0, null);
+            if(displaced != Species.EMPTY) {
+                counts[displaced].decrement();
+            }
+        }
+    }
+    
+    /**
+     * @return The running totals of births and deaths in the field.
+     */
+    public EventTally getEvents()
+    {
+        return events;
+    }
+    
+    /**
+     * @return The pool the young born in the field are taken from.
+     */
+    public AnimalPool getAnimalPool()
+    {
+        return pool;
+    }
+
+    /**
+     * @return The log the animals in the field write what they do to,
+     *         or null if nothing is logged.
+     */
+    public EventLog getEventLog()
+    {
+        return eventLog;
+    }
+    
+    /**
+     * Set the log the animals in the field write what they do to. This
+     * must not be changed while a step is running.
+     * @param eventLog The log, or null to stop logging.
+     */
+    public void setEventLog(EventLog eventLog)
+    {
+        this.eventLog = eventLog;
+    }
+    
+    /**
+     * Set what getObjectAt asks for an object standing for an entity
+     * placed by index, e.g. while a PopulationStepEngine lets the animals
+     * in its store act. This must not be changed while another thread
+     * is looking at the field.
+     * @param resolver The resolver, or null for getObjectAt to return
+     *                 null for such entities.
+     */
+    public void setEntityResolver(EntityResolver resolver)
+    {
+        this.resolver = resolver;
+    }
+    
+    /**
+     * @return The step being run, or the last step run if none is.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+    
+    /**
+     * Set the step being run. The animals in the field keep the steps
+     * at which they were born and will starve, and work out their age
+     * and food level from this, so it must be set before each step and
+     * before animals are created. Clearing the field does not change it.
+     * @param step The step.
+     */
+    public void setStep(int step)
+    {
+        this.step = step;
+    }
+    
+    /**
+     * Return the number of cells occupied by a species.
+     * @param species The species to count.
+     * @return How many of that species are in the field.
+     */
+    public int getCount(Species species)
+    {
+        return (int) counts[species.getCode()].sum();
+    }
+    
+    /**
+     * @return The number of chunks of the field currently allocated.
+     */
+    public synchronized int getChunkCount()
+    {
+        return live.size();
+    }
+    
+    /**
+     * Release the chunks that no longer hold anything. This should be
+     * done between steps, not while a step is writing the field.
+     */
+    public synchronized void releaseEmptyChunks()
+    {
+        live.removeIf(chunk -> {
+            if(!chunk.isEmpty()) {
+                return false;
+            }
+            chunks[chunk.index] = null;
+            if(draining) {
+                long[] pending = new long[chunk.changed.length()];
+                boolean any = false;
+                for(int word = 0; word < pending.length; word++) {
+                    pending[word] = chunk.changed.get(word);
+                    any |= pending[word] != 0;
+                }
+                if(any) {
+                    releasedChanges.put(chunk.index, pending);
+                }
+            }
+            return true;
+        });
+    }
+    
+    /**
+     * Return which of a cell's Moore neighbours hold a species. Bit i
+     * of the result is set if the neighbour at offset i holds it, the
+     * offsets being numbered as by Neighbourhood.rowOffset and colOffset;
+     * neighbours outside the field are never set.
+     * @param species The species to look for.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return The mask of neighbours holding the species.
+     */
+    public int neighbourMask(Species species, int row, int col)
+    {
+        return neighbourMask(species.getCode(), row, col);
+    }
+    
+    /**
+     * Return which of a cell's Moore neighbours are free, as a mask in
+     * the same form as neighbourMask.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return The mask of free neighbours.
+     */
+    public int freeNeighbourMask(int row, int col)
+    {
+        return neighbourMask(Species.EMPTY, row, col);
+    }
+    
+    /**
+     * Count the Moore neighbours of a cell that hold a species.
+     * @param species The species to count.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return How many of the eight neighbours hold the species.
+     */
+    public int countAround(Species species, int row, int col)
+    {
+        return Integer.bitCount(neighbourMask(species, row, col));
+    }
+    
+    /**
+     * Test whether any Moore neighbour of a cell holds a species.
+     * @param species The species to look for.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return true if at least one neighbour holds the species.
+     */
+    public boolean anyAround(Species species, int row, int col)
+    {
+        return neighbourMask(species, row, col) != 0;
+    }
+    
+    /**
+     * Find which of a cell's Moore neighbours hold each species code.
+     * Where the neighbourhood lies within one chunk, each code's mask is
+     * put together from three words of its bitboard.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @param masks Receives, indexed by species code, the mask of the
+     *              neighbours holding each, as for neighbourMask; the
+     *              mask for Species.EMPTY holds the free neighbours.
+     */
+    void neighbourMasks(int row, int col, int[] masks)
+    {
+        int localRow = row & CHUNK_MASK;
+        int localCol = col & CHUNK_MASK;
+        Chunk chunk = chunk(row, col);
+        if(chunk != null && localRow != 0 && localRow != CHUNK_MASK
+                         && localCol != 0 && localCol != CHUNK_MASK) {
+            // No board has bits for cells outside the field.
+            int shift = localCol - 1;
+            for(int code = 0; code < masks.length; code++) {
+                int word = (code << CHUNK_SHIFT) | localRow;
+                int above = (int) (chunk.boards.get(word - 1) >>> shift) & 7;
+                int middle = (int) (chunk.boards.get(word) >>> shift) & 5;
+                int below = (int) (chunk.boards.get(word + 1) >>> shift) & 7;
+                masks[code] = above | (middle & 1) << 3 | (middle & 4) << 2 | below << 5;
+            }
+            return;
+        }
+        Arrays.fill(masks, 0);
+        for(int neighbour = 0; neighbour < 8; neighbour++) {
+            int nextRow = row + Neighbourhood.rowOffset(neighbour);
+            int nextCol = col + Neighbourhood.colOffset(neighbour);
+            if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width) {
+                masks[getSpeciesAt(nextRow, nextCol)] |= 1 << neighbour;
+            }
+        }
+    }
+    
+    /**
+     * Gather the neighbours of a cell that hold a species code.
+     * @param code The species code, or Species.EMPTY for free cells.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return The mask of neighbours holding it, as for neighbourMask.
+     */
+    private int neighbourMask(int code, int row, int col)
+    {
+        int mask = 0;
+        if(row > 0) {
+            mask = window(code, row - 1, col);
+        }
+        int middle = window(code, row, col);
+        mask |= (middle & 1) << 3 | (middle & 4) << 2;
+        if(row < depth - 1) {
+            mask |= window(code, row + 1, col) << 5;
+        }
+        return mask;
+    }
+    
+    /**
+     * Find which of three adjacent cells of a row hold a species code.
+     * @param code The species code, or Species.EMPTY for free cells.
+     * @param row The row.
+     * @param col The column of the middle cell.
+     * @return Bits for columns col - 1, col and col + 1, in that order
+     *         from the lowest bit.
+     */
+    private int window(int code, int row, int col)
+    {
+        int local = col & CHUNK_MASK;
+        if(local != 0 && local != CHUNK_MASK) {
+            // All three cells are in the same chunk.
+            Chunk chunk = chunk(row, col);
+            if(chunk != null) {
+                long bits = chunk.boards.get((code << CHUNK_SHIFT) | (row & CHUNK_MASK));
+                return (int) (bits >>> (local - 1)) & 7;
+            }
+            if(code != Species.EMPTY) {
+                return 0;
+            }
+            return col + 1 < width ? 7 : 3;
+        }
+        return holds(code, row, col - 1) | holds(code, row, col) << 1 | holds(code, row, col + 1) << 2;
+    }
+    
+    /**
+     * Test whether a cell holds a species code.
+     * @param code The species code, or Species.EMPTY for free cells.
+     * @param row The row of the cell.
+     * @param col The column of the cell, which may be outside the field.
+     * @return 1 if it does, 0 if it does not or is outside the field.
+     */
+    private int holds(int code, int row, int col)
+    {
+        if(col < 0 || col >= width) {
+            return 0;
+        }
+        return getSpeciesAt(row, col) == code ? 1 : 0;
+    }
+    
+    /**
+     * Write a cell, keeping the species counts up to date.
+     * @param row Row coordinate of the cell.
+     * @param col Column coordinate of the cell.
+     * @param value The new species code and entity index.
+     * @param occupant The new object in the cell, or null.
+     */
+    private void setCell(int row, int col, int value, Object occupant)
+    {
+        int oldCode = write(row, col, value, occupant);
+        int newCode = value >>> SPECIES_SHIFT;
+        if(oldCode != newCode) {
+            if(oldCode != Species.EMPTY) {
+                counts[oldCode].decrement();
+            }
+            if(newCode != Species.EMPTY) {
+                counts[newCode].increment();
+            }
+        }
+    }
+    
+    /**
+     * Write a cell and keep its chunk's bitboards and changes up to
+     * date, allocating the chunk if need be, but not the counts.
+     * @param row Row coordinate of the cell.
+     * @param col Column coordinate of the cell.
+     * @param value The new species code and entity index.
+     * @param occupant The new object in the cell, or null.
+     * @return The species code the cell held before.
+     */
+    private int write(int row, int col, int value, Object occupant)
+    {
+        Chunk chunk = chunk(row, col);
+        if(chunk == null) {
+            if(value == 0) {
+                // The cell is already empty.
+                return Species.EMPTY;
+            }
+            chunk = allocate((row >>> CHUNK_SHIFT) * chunkCols + (col >>> CHUNK_SHIFT));
+        }
+        int local = local(row, col);
+        int oldCode = chunk.cells[local] >>> SPECIES_SHIFT;
+        int newCode = value >>> SPECIES_SHIFT;
+        if(oldCode != newCode) {
+            clearBit(chunk.boards, oldCode * CHUNK_CELLS + local);
+            setBit(chunk.boards, newCode * CHUNK_CELLS + local);
+        }
+        chunk.cells[local] = value;
+        chunk.occupants[local] = occupant;
+        setBit(chunk.changed, local);
+        return oldCode;
+    }
+    
+    /**
+     * @param row A row of the field.
+     * @param col A column of the field.
+     * @return The chunk holding the cell, or null if it is not allocated.
+     */
+    private Chunk chunk(int row, int col)
+    {
+        return chunks[(row >>> CHUNK_SHIFT) * chunkCols + (col >>> CHUNK_SHIFT)];
+    }
+    
+    /**
+     * @param row A row of the field.
+     * @param col A column of the field.
+     * @return The cell's index within its chunk.
+     */
+    private static int local(int row, int col)
+    {
+        return (row & CHUNK_MASK) << CHUNK_SHIFT | (col & CHUNK_MASK);
+    }
+    
+    /**
+     * Return a chunk, allocating it if another thread has not already.
+     * @param index The chunk's index.
+     * @return The chunk.
+     */
+    private synchronized Chunk allocate(int index)
+    {
+        Chunk chunk = chunks[index];
+        if(chunk == null) {
+            int top = index / chunkCols << CHUNK_SHIFT;
+            int left = index % chunkCols << CHUNK_SHIFT;
+            chunk = new Chunk(index, top, left, Math.min(CHUNK_SIZE, depth - top),
+                              Math.min(CHUNK_SIZE, width - left), releasedChanges.remove(index));
+            live.add(chunk);
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+    
+    /**
+     * Pass the index of every cell written since the last drain to the
+     * given action, in no particular order, and forget those changes. A
+     * cell's index is its row times the width plus its column, so this
+     * is only for fields of fewer than 2^31 cells. Only one thread
+     * should drain the changes, and it should not do so while a step is
+     * writing the field.
+     * @param action What to do with each changed cell's index.
+     */
+    public synchronized void drainChanges(IntConsumer action)
+    {
+        draining = true;
+        if(allChanged) {
+            allChanged = false;
+            for(Chunk chunk : live) {
+                for(int word = 0; word < chunk.changed.length(); word++) {
+                    chunk.changed.set(word, 0);
+                }
+            }
+            releasedChanges.clear();
+            int size = depth * width;
+            for(int index = 0; index < size; index++) {
+                action.accept(index);
+            }
+            return;
+        }
+        for(Chunk chunk : live) {
+            for(int word = 0; word < chunk.changed.length(); word++) {
+                long bits = chunk.changed.get(word) == 0 ? 0 : chunk.changed.getAndSet(word, 0);
+                drain(chunk.index, word, bits, action);
+            }
+        }
+        for(Map.Entry<Integer, long[]> released : releasedChanges.entrySet()) {
+            long[] pending = released.getValue();
+            for(int word = 0; word < pending.length; word++) {
+                drain(released.getKey(), word, pending[word], action);
+            }
+        }
+        releasedChanges.clear();
+    }
+    
+    /**
+     * Pass the field index of each cell marked in a word of a chunk's
+     * changes to an action.
+     * @param chunkIndex The index of the chunk.
+     * @param word The word of the chunk's changes, which is its row.
+     * @param bits The changes in that word, one bit per column.
+     * @param action What to do with each changed cell's index.
+     */
+    private void drain(int chunkIndex, int word, long bits, IntConsumer action)
+    {
+        int row = (chunkIndex / chunkCols << CHUNK_SHIFT) + word;
+        int left = chunkIndex % chunkCols << CHUNK_SHIFT;
+        while(bits != 0) {
+            int col = left + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            action.accept(row * width + col);
+        }
+    }
+    
+    /**
+     * Set a bit of a bit array, without disturbing other threads
+     * setting or clearing other bits of the same word.
+     * @param array The bit array.
+     * @param index The bit.
+     */
+    private static void setBit(AtomicLongArray array, int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long bits = array.get(word);
+        while((bits & bit) == 0 && !array.weakCompareAndSetVolatile(word, bits, bits | bit)) {
+            bits = array.get(word);
+        }
+    }
+    
+    /**
+     * Clear a bit of a bit array, without disturbing other threads
+     * setting or clearing other bits of the same word.
+     * @param array The bit array.
+     * @param index The bit.
+     */
+    private static void clearBit(AtomicLongArray array, int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long bits = array.get(word);
+        while((bits & bit) != 0 && !array.weakCompareAndSetVolatile(word, bits, bits & ~bit)) {
+            bits = array.get(word);
+        }
+    }
+    
+    /**
+     * Write the species code of every cell into an array, row-major,
+     * looking only at the chunks that are allocated.
+     * @param codes The array, of depth times width entries.
+     */
+    public void copyCodes(byte[] codes)
+    {
+        Arrays.fill(codes, (byte) Species.EMPTY);
+        for(Chunk chunk : liveChunks()) {
+            for(int row = 0; row < chunk.rows; row++) {
+                int start = (chunk.top + row) * width + chunk.left;
+                for(int col = 0; col < chunk.cols; col++) {
+                    codes[start + col] = (byte) (chunk.cells[row << CHUNK_SHIFT | col] >>> SPECIES_SHIFT);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Pass every object placed in the field to an action, looking only
+     * at the chunks that are allocated. The order is the same for any
+     * two fields holding the same objects in the same cells.
+     * @param action What to do with each object.
+     */
+    public void forEachObject(Consumer<Object> action)
+    {
+        List<Chunk> sorted = liveChunks();
+        sorted.sort(Comparator.comparingInt(chunk -> chunk.index));
+        for(Chunk chunk : sorted) {
+            for(Object occupant : chunk.occupants) {
+                if(occupant != null) {
+                    action.accept(occupant);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Pass every occupied cell and the species code of its occupant to
+     * a visitor, finding them from the chunks' EMPTY bitboards and
+     * looking only at the chunks that are allocated. The order is the
+     * same for any two fields with the same cells occupied.
+     * @param visitor What to do with each occupied cell.
+     */
+    public void forEachOccupied(CellVisitor visitor)
+    {
+        List<Chunk> sorted = liveChunks();
+        sorted.sort(Comparator.comparingInt(chunk -> chunk.index));
+        for(Chunk chunk : sorted) {
+            for(int row = 0; row < chunk.rows; row++) {
+                long occupied = ~chunk.boards.get((Species.EMPTY << CHUNK_SHIFT) | row) & chunk.emptyRow;
+                while(occupied != 0) {
+                    int col = Long.numberOfTrailingZeros(occupied);
+                    occupied &= occupied - 1;
+                    visitor.visit(Location.pack(chunk.top + row, chunk.left + col),
+                                  chunk.cells[row << CHUNK_SHIFT | col] >>> SPECIES_SHIFT);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return A copy of the list of allocated chunks.
+     */
+    private synchronized List<Chunk> liveChunks()
+    {
+        return new ArrayList<>(live);
     }
     
     /**
@@ -90,14 +763,102 @@ public class Field
     }
     
     /**
-     * Return the animal at the given location, if any.
+     * Return the animal at the given location, if any. For an entity
+     * placed by index, this is the object the entity resolver gives for
+     * it, if one is set.
      * @param row The desired row.
      * @param col The desired column.
      * @return The animal at the given location, or null if there is none.
      */
     public Object getObjectAt(int row, int col)
     {
-        return field[row][col];
+        Chunk chunk = chunk(row, col);
+        if(chunk == null) {
+            return null;
+        }
+        int local = local(row, col);
+        Object occupant = chunk.occupants[local];
+        if(occupant == null && resolver != null && chunk.cells[local] != 0) {
+            return resolver.resolve(chunk.cells[local] & MAX_ENTITY);
+        }
+        return occupant;
+    }
+    
+    /**
+     * Return the species code of the occupant of a cell.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The occupant's species code, or Species.EMPTY.
+     */
+    public int getSpeciesAt(int row, int col)
+    {
+        Chunk chunk = chunk(row, col);
+        return chunk == null ? Species.EMPTY : chunk.cells[local(row, col)] >>> SPECIES_SHIFT;
+    }
+    
+    /**
+     * Test whether a cell is unoccupied.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return true if nothing occupies the cell.
+     */
+    public boolean isEmpty(int row, int col)
+    {
+        Chunk chunk = chunk(row, col);
+        return chunk == null || chunk.cells[local(row, col)] == 0;
+    }
+    
+    /**
+     * Return a cursor positioned before the first neighbour of the given
+     * location, visiting the neighbours in a random order.
+     * Each thread has one such cursor, which is restarted by that thread's
+     * next call on any field, so callers must finish with it before
+     * asking again.
+     * Threads may look at the field concurrently provided they do not
+     * write to the same cells.
+     * @param location The centre of the neighbourhood.
+     * @return The thread's neighbourhood cursor.
+     */
+    public Neighbourhood neighbours(Location location)
+    {
+        return NEIGHBOURS.get().bind(this).start(location);
+    }
+    
+    /**
+     * Return the thread's neighbourhood cursor positioned before the
+     * first neighbour of the given cell. See neighbours(Location).
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return The thread's neighbourhood cursor.
+     */
+    public Neighbourhood neighbours(int row, int col)
+    {
+        return NEIGHBOURS.get().bind(this).start(row, col);
+    }
+    
+    /**
+     * Return a summary of the neighbourhood of the given location, read
+     * from the field now. Each thread has one summary, which is
+     * overwritten by that thread's next call on any field, so callers
+     * must finish with it before asking again.
+     * @param location The centre of the neighbourhood.
+     * @return The thread's neighbourhood summary.
+     */
+    public NeighbourhoodSummary summarize(Location location)
+    {
+        return SUMMARIES.get().bind(this).scan(location);
+    }
+
+    /**
+     * Return the thread's summary of the neighbourhood of the given cell,
+     * read from the field now. See summarize(Location).
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return The thread's neighbourhood summary.
+     */
+    public NeighbourhoodSummary summarize(int row, int col)
+    {
+        return SUMMARIES.get().bind(this).scan(row, col);
     }
     
     /**
@@ -110,8 +871,11 @@ public class Field
      */
     public Location randomAdjacentLocation(Location location)
     {
-        List<Location> adjacent = adjacentLocations(location);
-        return adjacent.get(0);
+        Neighbourhood adjacent = SCRATCH.get().bind(this);
+        if(adjacent.start(location).next()) {
+            return adjacent.getLocation();
+        }
+        return location;
     }
     
     /**
@@ -121,12 +885,10 @@ public class Field
      */
     public List<Location> getFreeAdjacentLocations(Location location)
     {
-        List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
-                free.add(next);
-            }
+        List<Location> free = new ArrayList<>(8);
+        Neighbourhood adjacent = SCRATCH.get().bind(this).start(location);
+        while(adjacent.nextFree()) {
+            free.add(adjacent.getLocation());
         }
         return free;
     }
@@ -141,10 +903,9 @@ public class Field
      */
     public Location freeAdjacentLocation(Location location)
     {
-        // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        Neighbourhood adjacent = SCRATCH.get().bind(this);
+        if(adjacent.start(location).nextFree()) {
+            return adjacent.getLocation();
         }
         else {
             return null;
@@ -155,6 +916,7 @@ public class Field
      * Return a shuffled list of locations adjacent to the given one.
      * The list will not include the location itself.
      * All locations will lie within the grid.
+     * Prefer neighbours(), which visits the same cells without allocating.
      * @param location The location from which to generate adjacencies.
      * @return A list of locations adjacent to that given.
      */
@@ -162,26 +924,12 @@ public class Field
     {
         assert location != null : "Null location passed to adjacentLocations";
         // The list of locations to be returned.
-        List<Location> locations = new LinkedList<>();
+        List<Location> locations = new ArrayList<>(8);
         if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
-                }
+            Neighbourhood adjacent = SCRATCH.get().bind(this).start(location);
+            while(adjacent.next()) {
+                locations.add(adjacent.getLocation());
             }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
         }
         return locations;
     }
@@ -203,4 +951,96 @@ public class Field
     {
         return width;
     }
+
+    /**
+     * Something told about each occupied cell of a field.
+     */
+    public interface CellVisitor
+    {
+        /**
+         * Visit an occupied cell.
+         * @param location The cell, packed.
+         * @param code The species code of its occupant.
+         */
+        void visit(long location, int code);
+    }
+
+    /**
+     * Finds an object standing for an entity that a store keeps for
+     * itself and places in the field by index.
+     */
+    public interface EntityResolver
+    {
+        /**
+         * @param entity The entity's index.
+         * @return An object standing for the entity.
+         */
+        Object resolve(int entity);
+    }
+
+    /**
+     * A square block of the field's cells, with their occupants,
+     * bitboards and changes.
+     */
+    private static class Chunk
+    {
+        // The chunk's index in the field's table of chunks.
+        final int index;
+        // The field row and column of the chunk's first cell.
+        final int top, left;
+        // The number of the chunk's rows and columns inside the field.
+        final int rows, cols;
+        // Species code and entity index of each cell, row-major.
+        final int[] cells;
+        // The object in each cell, row-major, if it was placed as an object.
+        final Object[] occupants;
+        // For each species code in turn, one word per row of the chunk
+        // with a bit set for each cell holding that code.
+        final AtomicLongArray boards;
+        // One bit per cell, set when the cell is written and cleared
+        // when the change is drained.
+        final AtomicLongArray changed;
+        // The row of the EMPTY bitboard when a row holds nothing.
+        final long emptyRow;
+
+        /**
+         * Create an empty chunk.
+         * @param index The chunk's index.
+         * @param top The field row of its first cell.
+         * @param left The field column of its first cell.
+         * @param rows The number of its rows inside the field.
+         * @param cols The number of its columns inside the field.
+         * @param pending Changes from when the chunk was last released,
+         *                or null.
+         */
+        Chunk(int index, int top, int left, int rows, int cols, long[] pending)
+        {
+            this.index = index;
+            this.top = top;
+            this.left = left;
+            this.rows = rows;
+            this.cols = cols;
+            cells = new int[CHUNK_CELLS];
+            occupants = new Object[CHUNK_CELLS];
+            boards = new AtomicLongArray(Species.codeCount() << CHUNK_SHIFT);
+            changed = pending == null ? new AtomicLongArray(CHUNK_SIZE) : new AtomicLongArray(pending);
+            emptyRow = cols == CHUNK_SIZE ? -1L : (1L << cols) - 1;
+            for(int row = 0; row < rows; row++) {
+                boards.set((Species.EMPTY << CHUNK_SHIFT) | row, emptyRow);
+            }
+        }
+
+        /**
+         * @return true if no cell of the chunk is occupied.
+         */
+        boolean isEmpty()
+        {
+            for(int row = 0; row < rows; row++) {
+                if(boards.get((Species.EMPTY << CHUNK_SHIFT) | row) != emptyRow) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,233 @@
+import java.util.Arrays;
+
+/**
+ * The state of a field at the end of one step: the population of each
+ * species, the step number, whether it was day, and the species code of
+ * its cells. A snapshot can be read on any thread while the simulation
+ * carries on changing the field.
+ *
+ * A snapshot either holds every cell (see isWhole) or, as those handed
+ * out by a SnapshotPublisher almost always do, only the cells that
+ * changed since the snapshot its listener was shown before, so that a
+ * step costs in proportion to what changed rather than to the area of
+ * the field. A cell may be listed more than once, the last entry being
+ * the latest. Listeners bring a copy of their own up to date from them.
+ *
+ * Snapshots handed out by a SnapshotPublisher are recycled once their
+ * listener returns, so a listener must not keep one beyond its call.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class FieldSnapshot
+{
+    // The most cells a field may have to be snapshot, as the cells are
+    // indexed by an int.
+    public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    // The depth and width of the field.
+    private final int depth, width;
+    // The species code of each cell, row-major, if the snapshot is
+    // whole; allocated the first time it is.
+    private byte[] codes;
+    // Whether codes holds every cell.
+    private boolean whole;
+    // Otherwise, the index and species code of each changed cell, in
+    // the order they were added, and the number of them.
+    private int[] changedCells;
+    private byte[] changedCodes;
+    private int changes;
+    // The number of cells occupied by each species, indexed by code.
+    private final int[] counts;
+    // The step at which the snapshot was taken.
+    private int step;
+    // Whether it was daytime at that step.
+    private boolean isDay;
+
+    /**
+     * Take a snapshot of the whole of a field.
+     * @param field The field to copy.
+     * @param step Which iteration step it is.
+     * @param isDay Whether it is currently daytime.
+     * @throws IllegalArgumentException If the field has more than
+     *                                  MAX_CELLS cells.
+     */
+    public FieldSnapshot(Field field, int step, boolean isDay)
+    {
+        this(field.getDepth(), field.getWidth());
+        copyWhole(field);
+        fill(field, step, isDay);
+    }
+
+    /**
+     * Create an empty snapshot of a field of the given size, holding no
+     * changed cells, to be filled in by its publisher.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @throws IllegalArgumentException If the field has more than
+     *                                  MAX_CELLS cells.
+     */
+    FieldSnapshot(int depth, int width)
+    {
+        if((long) depth * width > MAX_CELLS) {
+            throw new IllegalArgumentException("A field of " + depth + " by " + width
+                                               + " is too large to snapshot");
+        }
+        this.depth = depth;
+        this.width = width;
+        changedCells = new int[64];
+        changedCodes = new byte[64];
+        counts = new int[Species.codeCount()];
+    }
+
+    /**
+     * Forget the cells held, so that the snapshot holds no changes.
+     */
+    void clearChanges()
+    {
+        whole = false;
+        changes = 0;
+    }
+
+    /**
+     * Record that a cell has changed since the last snapshot shown. If
+     * the snapshot is whole, the cell is simply updated.
+     * @param index The cell's row times the width plus its column.
+     * @param code The species code now in the cell.
+     */
+    void addChange(int index, int code)
+    {
+        if(whole) {
+            codes[index] = (byte) code;
+            return;
+        }
+        if(changes == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, changes * 2);
+            changedCodes = Arrays.copyOf(changedCodes, changes * 2);
+        }
+        changedCells[changes] = index;
+        changedCodes[changes] = (byte) code;
+        changes++;
+    }
+
+    /**
+     * Copy every cell of a field, making the snapshot whole.
+     * @param field The field, which must be the snapshot's size.
+     */
+    void copyWhole(Field field)
+    {
+        if(codes == null) {
+            codes = new byte[depth * width];
+        }
+        field.copyCodes(codes);
+        whole = true;
+        changes = 0;
+    }
+
+    /**
+     * Fill in everything but the cells.
+     * @param field The field, for its population counts.
+     * @param step Which iteration step it is.
+     * @param isDay Whether it is currently daytime.
+     */
+    void fill(Field field, int step, boolean isDay)
+    {
+        for(Species species : Species.values()) {
+            counts[species.getCode()] = field.getCount(species);
+        }
+        this.step = step;
+        this.isDay = isDay;
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return The step at which the snapshot was taken.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return Whether it was daytime when the snapshot was taken.
+     */
+    public boolean isDay()
+    {
+        return isDay;
+    }
+
+    /**
+     * @return true if the snapshot holds every cell, false if it holds
+     *         only those changed since the last snapshot shown.
+     */
+    public boolean isWhole()
+    {
+        return whole;
+    }
+
+    /**
+     * Return the species code of a cell of a whole snapshot.
+     * @param index The cell's row times the width plus its column.
+     * @return The code of its occupant, or Species.EMPTY.
+     * @throws IllegalStateException If the snapshot is not whole.
+     */
+    public int getSpeciesAt(int index)
+    {
+        if(!whole) {
+            throw new IllegalStateException("The snapshot holds only the changed cells");
+        }
+        return codes[index];
+    }
+
+    /**
+     * @return The number of changed cells held, or 0 if the snapshot
+     *         is whole.
+     */
+    public int getChangeCount()
+    {
+        return changes;
+    }
+
+    /**
+     * @param change The number of a change, from 0 to getChangeCount.
+     * @return The index of the cell changed: its row times the width
+     *         plus its column.
+     */
+    public int getChangedCell(int change)
+    {
+        return changedCells[change];
+    }
+
+    /**
+     * @param change The number of a change, from 0 to getChangeCount.
+     * @return The species code the cell changed to.
+     */
+    public int getChangedSpecies(int change)
+    {
+        return changedCodes[change];
+    }
+
+    /**
+     * @param species A species.
+     * @return How many of that species were in the field.
+     */
+    public int getCount(Species species)
+    {
+        return counts[species.getCode()];
+    }
+}
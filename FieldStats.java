@@ -1,18 +1,19 @@
 import java.awt.Color;
-import java.util.HashMap;
 
 /**
  * This class collects and provides some statistical data on the state 
- * of a field. It is flexible: it will create and maintain a counter 
- * for any class of object that is found within the field.
+ * of a field. It keeps a counter for each species, indexed by species
+ * code. The field maintains its own population counts as animals are
+ * placed, moved and removed, so bringing the counters up to date costs
+ * one read per species rather than a scan of the field.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class FieldStats
 {
-    // Counters for each type of entity (fox, rabbit, etc.) in the simulation.
-    private HashMap<Class, Counter> counters;
+    // Counters for each species in the simulation, indexed by species code.
+    private Counter[] counters;
     // Whether the counters are currently up to date.
     private boolean countsValid;
 
@@ -21,28 +22,53 @@ public class FieldStats
      */
     public FieldStats()
     {
-        // Set up a collection for counters for each type of animal that
-        // we might find
-        counters = new HashMap<>();
-        countsValid = true;
+        // Set up a counter for each species that we might find.
+        counters = new Counter[Species.codeCount()];
+        for(Species species : Species.values()) {
+            counters[species.getCode()] = new Counter(species.getName());
+        }
+        countsValid = false;
     }
 
     /**
      * Get details of what is in the field.
+     * This always reflects the current state of the field.
      * @return A string describing what is in the field.
      */
     public String getPopulationDetails(Field field)
     {
-        StringBuffer buffer = new StringBuffer();
-        if(!countsValid) {
-            generateCounts(field);
+        generateCounts(field);
+        return describeCounts();
+    }
+
+    /**
+     * Get details of what was in the field when a snapshot was taken.
+     * @param snapshot The snapshot to describe.
+     * @return A string describing what is in the snapshot.
+     */
+    public String getPopulationDetails(FieldSnapshot snapshot)
+    {
+        for(Species species : Species.values()) {
+            counters[species.getCode()].setCount(snapshot.getCount(species));
         }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            buffer.append(info.getName());
-            buffer.append(": ");
-            buffer.append(info.getCount());
-            buffer.append(' ');
+        countsValid = false;
+        return describeCounts();
+    }
+
+    /**
+     * @return A string describing the current counts.
+     */
+    private String describeCounts()
+    {
+        StringBuffer buffer = new StringBuffer();
+        for(Species species : Species.values()) {
+            Counter info = counters[species.getCode()];
+            if(species != Species.OTHER || info.getCount() > 0) {
+                buffer.append(info.getName());
+                buffer.append(": ");
+                buffer.append(info.getCount());
+                buffer.append(' ');
+            }
         }
         return buffer.toString();
     }
@@ -54,26 +80,18 @@ public class FieldStats
     public void reset()
     {
         countsValid = false;
-        for(Class key : counters.keySet()) {
-            Counter count = counters.get(key);
-            count.reset();
+        for(Species species : Species.values()) {
+            counters[species.getCode()].reset();
         }
     }
 
     /**
-     * Increment the count for one class of animal.
-     * @param animalClass The class of animal to increment.
+     * Increment the count for one species.
+     * @param species The species to increment.
      */
-    public void incrementCount(Class animalClass)
+    public void incrementCount(Species species)
     {
-        Counter count = counters.get(animalClass);
-        if(count == null) {
-            // We do not have a counter for this species yet.
-            // Create one.
-            count = new Counter(animalClass.getName());
-            counters.put(animalClass, count);
-        }
-        count.increment();
+        counters[species.getCode()].increment();
     }
 
     /**
@@ -87,18 +105,16 @@ public class FieldStats
     /**
      * Determine whether the simulation is still viable.
      * I.e., should it continue to run.
+     * This always reflects the current state of the field.
      * @return true If there is more than one species alive.
      */
     public boolean isViable(Field field)
     {
         // How many counts are non-zero.
         int nonZero = 0;
-        if(!countsValid) {
-            generateCounts(field);
-        }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            if(info.getCount() > 0) {
+        generateCounts(field);
+        for(Species species : Species.values()) {
+            if(counters[species.getCode()].getCount() > 0) {
                 nonZero++;
             }
         }
@@ -106,22 +122,15 @@ public class FieldStats
     }
     
     /**
-     * Generate counts of the number of foxes and rabbits.
-     * These are not kept up to date as foxes and rabbits
-     * are placed in the field, but only when a request
-     * is made for the information.
+     * Bring the counters up to date with the populations that the
+     * field maintains as animals are placed and removed.
      * @param field The field to generate the stats for.
      */
     private void generateCounts(Field field)
     {
         reset();
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    incrementCount(animal.getClass());
-                }
-            }
+        for(Species species : Species.values()) {
+            counters[species.getCode()].setCount(field.getCount(species));
         }
         countsValid = true;
     }
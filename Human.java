@@ -1,6 +1,4 @@
 import java.util.List;
-import java.util.Random;
-import java.util.Iterator;
 
 /**
  * A simple model of a Human.
@@ -21,12 +19,8 @@ public class Human extends Animal
     private static final double BREEDING_PROBABILITY = 0.20;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 6;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
     // Individual characteristics (instance fields).
     private static final double FEMALE_PROBABILITY = 0.5; 
-    // The Human's age.
-    private int age;
 
     /**
      * Create a new Human. A Human may be created with age
@@ -37,17 +31,46 @@ public class Human extends Animal
      * @param location The location within the field.
      */
     public Human(boolean randomAge, Field field, Location location)
+    {
+        this(randomAge, field, location.pack());
+    }
+
+    /**
+     * Create a Human at a packed location, as the constructor above does.
+     * @param randomAge If true, the Human will have a random age.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    Human(boolean randomAge, Field field, long location)
     {
         super(field, location);
-        age = 0;
+        initialize(randomAge);
+    }
+
+    /**
+     * Create a Human that is not alive and is in no field, for the state
+     * of one kept in a PopulationStore to be loaded into.
+     */
+    Human()
+    {
+    }
+
+    /**
+     * Give the Human its age and sex.
+     * @param randomAge If true, the Human will have a random age;
+     *                  otherwise that of a new born.
+     */
+    void initialize(boolean randomAge)
+    {
+        RandomStream rand = Randomizer.current();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
+            setAge(rand.nextInt(MAX_AGE));
         }
         if(rand.nextDouble() <= FEMALE_PROBABILITY) { 
             super.isFemale  = true; 
         } else { 
             super.isFemale = false;                        
-        } 
+        }
     }
 
     /**
@@ -57,54 +80,73 @@ public class Human extends Animal
      */
     public void act(List<Animal> newHumans, boolean isDay)
     {
-        incrementAge();
+        checkLifespan();
         if(isAlive()&&(isDay)) {
-            giveBirth(newHumans);            
+            NeighbourhoodSummary around = getField().summarize(getRow(), getCol());
+            giveBirth(newHumans, around);            
             // Try to move into a free location.
-            move();
+            move(around);
         }
     }
 
     /**
-     * Increase the age.
-     * This could result in the Human's death.
+     * @return The Human species.
      */
-    private void incrementAge()
+    public Species getSpecies()
     {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
+        return Species.HUMAN;
+    }
+
+    /**
+     * @return The age to which a Human can live.
+     */
+    int getMaxAge()
+    {
+        return MAX_AGE;
+    }
+
+    /**
+     * Set the Human's age, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel Ignored; a Human has no food level.
+     */
+    void restoreState(int age, int foodLevel)
+    {
+        setAge(age);
     }
 
     /**
      * Check whether or not this Human is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param newHumans A list to return newly born Humans.
+     * @param around The Human's neighbourhood.
      */
-    private void giveBirth(List<Animal> newHumans)
+    private void giveBirth(List<Animal> newHumans, NeighbourhoodSummary around)
     {
-        // New Humans are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            Human young = new Human(false, field, loc);
-            newHumans.add(young);
+        // New Humans are born into adjacent free locations.
+        int births = breed(around);
+        if(births > 0) {
+            Field field = getField();
+            for(int b = 0; b < births && around.hasFree(); b++) {
+                Animal young = field.getAnimalPool().obtain(Species.HUMAN, field,
+                                                            around.takeFree(Species.HUMAN));
+                field.getEvents().recordBirth(Species.HUMAN);
+                newHumans.add(young);
+            }
         }
     }
 
     /**
      * Generate a number representing the number of births,
      * if it can breed.
+     * @param around The Human's neighbourhood.
      * @return The number of births (may be zero).
      */
-    private int breed()
+    private int breed(NeighbourhoodSummary around)
     {
+        RandomStream rand = Randomizer.current();
         int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
+        if(canBreed(around) && rand.nextDouble() <= BREEDING_PROBABILITY) {
             births = rand.nextInt(MAX_LITTER_SIZE) + 1;
         }
         return births;
@@ -112,22 +154,19 @@ public class Human extends Animal
 
     /**
      * A Human can breed if it has reached the breeding age.
+     * @param around The Human's neighbourhood.
      * @return true if the Human can breed, false otherwise.
      */
-    private boolean canBreed() { 
-
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Human) {
-                Human human = (Human) animal;
-
-                if(age >= BREEDING_AGE && (human.getIsFemale() && !this.getIsFemale()) || (!human.getIsFemale() && this.getIsFemale()) ) {
-                    return true; 
-                }
+    private boolean canBreed(NeighbourhoodSummary around) { 
+
+        int mates = around.getMask(Species.HUMAN);
+        while(mates != 0) {
+            int neighbour = Integer.numberOfTrailingZeros(mates);
+            mates &= mates - 1;
+            Human human = (Human) around.getObject(neighbour);
+
+            if(getAge() >= BREEDING_AGE && (human.getIsFemale() && !this.getIsFemale()) || (!human.getIsFemale() && this.getIsFemale()) ) {
+                return true; 
             }
         }
         return false;
@@ -1,7 +1,5 @@
 
 import java.util.List;
-import java.util.Random;
-import java.util.Iterator;
 
 /**
  * A simple model of a InfectedHuman.
@@ -18,19 +16,11 @@ public class InfectedHuman extends Animal
     private static final double INFECTION_PROBABILITY = 0.5;
     // The age to which a InfectedHuman can live.
     private static final int MAX_AGE = 100;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
 
-    // Individual characteristics (instance fields).
-
-    // The InfectedHuman's age.
-    private int age;
     //The number of steps a InfectedHuman can take before dying
     private static final int Human_FOOD_VALUE = 150;
     //The probability that a new InfectedHuman is female
     private static final double FEMALE_PROBABILITY = 0.5; 
-    //The food level 
-    private int foodLevel;
 
     /**
      * Create a new InfectedHuman. A InfectedHuman may be created with age
@@ -41,19 +31,50 @@ public class InfectedHuman extends Animal
      * @param location The location within the field.
      */
     public InfectedHuman(boolean randomAge, Field field, Location location)
+    {
+        this(randomAge, field, location.pack());
+    }
+
+    /**
+     * Create a InfectedHuman at a packed location, as the constructor above does.
+     * @param randomAge If true, the InfectedHuman will have a random age.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    InfectedHuman(boolean randomAge, Field field, long location)
     {
         super(field, location);
-        age = 0;
+        initialize(randomAge);
+    }
+
+    /**
+     * Create an InfectedHuman that is not alive and is in no field, for the state
+     * of one kept in a PopulationStore to be loaded into.
+     */
+    InfectedHuman()
+    {
+    }
+
+    /**
+     * Give the InfectedHuman its age, food level and sex.
+     * @param randomAge If true, the InfectedHuman will have a random age and
+     *                  food level; otherwise those of a new born.
+     */
+    void initialize(boolean randomAge)
+    {
+        RandomStream rand = Randomizer.current();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
-            foodLevel = rand.nextInt(Human_FOOD_VALUE);
+            setAge(rand.nextInt(MAX_AGE));
+            setFoodLevel(rand.nextInt(Human_FOOD_VALUE));
+        }
+        else {
+            setFoodLevel(0);
         }
         if(rand.nextDouble() <= FEMALE_PROBABILITY) { 
             super.isFemale  = true; 
         } else { 
             super.isFemale = false;                        
-        } 
-
+        }
     }
 
     /**
@@ -63,96 +84,100 @@ public class InfectedHuman extends Animal
      */
     public void act(List<Animal> newInfectedHumans, boolean isDay)
     {
-        incrementAge();
-        incrementHunger();
+        checkLifespan();
         if(isAlive()) {
             // returns the location of the non-infected human
             // infect that human (delete human in that location and create infectedHuman
             // move 'me' - the infected one - to other free location
-            Location newLocation = findHuman(); 
-            if(newLocation != null){
-                foodLevel += Human_FOOD_VALUE;
-                Human nonInfected = (Human) getField().getObjectAt(newLocation);
-                nonInfected.setDead();
-                InfectedHuman newInfected = new InfectedHuman(false, getField(), newLocation);
-                addInfected(newInfectedHumans);
+            NeighbourhoodSummary around = getField().summarize(getRow(), getCol());
+            int human = findHuman(around); 
+            if(human >= 0){
+                feed(Human_FOOD_VALUE);
+                Human nonInfected = (Human) around.getObject(human);
+                nonInfected.setDead(DeathCause.INFECTION);
+                getField().getAnimalPool().obtain(Species.INFECTED_HUMAN, getField(),
+                                                  around.getPackedLocation(human));
+                around.occupy(human, Species.INFECTED_HUMAN);
+                addInfected(newInfectedHumans, around);
             }
-            move();
+            move(around);
         }
     }
 
     /**
      * Look for Humans adjacent to the current location.
      * Only the first live Human is turned into an InfectedHuman.
-     * @return Where a human was found, or null if it wasn't.
+     * @param around The InfectedHuman's neighbourhood.
+     * @return The neighbour where a human was found, or -1 if it wasn't.
      */
-    private Location findHuman()
+    private int findHuman(NeighbourhoodSummary around)
     {
-        {
-            List<Location> adjacent = getField().adjacentLocations(getLocation());
-            Iterator<Location> it = adjacent.iterator();
-            while(it.hasNext()) {
-                Location where = it.next();
-                Object animal = getField().getObjectAt(where);
-                if(animal instanceof Human) {
-                    return where;
-                }
-            }
-            return null;
+        int humans = around.getMask(Species.HUMAN);
+        if(humans == 0) {
+            return -1;
         }
+        return around.choose(humans);
     }
 
     /**
-     * Increase the age.
-     * This could result in the InfectedHuman's death.
+     * @return The InfectedHuman species.
      */
-    private void incrementAge()
+    public Species getSpecies()
     {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
+        return Species.INFECTED_HUMAN;
     }
 
     /**
-     * Make this InfectedHuman more hungry. This could result in the InfectedHuman's death.
+     * @return The age to which an InfectedHuman can live.
      */
-    private void incrementHunger()
+    int getMaxAge()
     {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
-        }
+        return MAX_AGE;
+    }
+
+    /**
+     * Set the InfectedHuman's age and food level, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel The food level.
+     */
+    void restoreState(int age, int foodLevel)
+    {
+        setAge(age);
+        setFoodLevel(foodLevel);
     }
 
     /**
      * @param the list of newInfectedHumans being created
      * Add the newly created InfectedHuman objects to the animals list
+     * @param around The InfectedHuman's neighbourhood.
      */
-    private void addInfected(List<Animal> newInfectedHumans)
+    private void addInfected(List<Animal> newInfectedHumans, NeighbourhoodSummary around)
     {
-        // New Humans are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int infections = infect();
-        for(int b = 0; b < infections && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            InfectedHuman young = new InfectedHuman(false, field, loc);
-            newInfectedHumans.add(young);
+        // New InfectedHumans appear in adjacent free locations.
+        int infections = infect(around);
+        if(infections > 0) {
+            Field field = getField();
+            for(int b = 0; b < infections && around.hasFree(); b++) {
+                Animal young = field.getAnimalPool().obtain(Species.INFECTED_HUMAN, field,
+                                                            around.takeFree(Species.INFECTED_HUMAN));
+                field.getEvents().recordBirth(Species.INFECTED_HUMAN);
+                newInfectedHumans.add(young);
+            }
         }
     }
 
     /**
+     * @param around The InfectedHuman's neighbourhood.
      * @return the acutal number of humans that will be infected by the infected human
      */
-    private int infect()
+    private int infect(NeighbourhoodSummary around)
     {
         // know how many non infected humans exist nearby
-        int numberOfHuman = numberOfNonInfected();
+        RandomStream rand = Randomizer.current();
+        int numberOfHuman = numberOfNonInfected(around);
         int infections = 0;
         for(int i = 0; i < numberOfHuman; i++){
-            if(canInfect() && rand.nextDouble() <= INFECTION_PROBABILITY) {
+            if(canInfect(around) && rand.nextDouble() <= INFECTION_PROBABILITY) {
                 infections++;
             }
         }
@@ -160,46 +185,19 @@ public class InfectedHuman extends Animal
     }
 
     /**
+     * @param around The InfectedHuman's neighbourhood.
      * @return true or false if the animal in an adjacent cell is human
      */
-    private boolean canInfect() { 
-
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Human) {
-                Human human = (Human) animal;
-                return true;
-            }
-        }
-        return false;
+    private boolean canInfect(NeighbourhoodSummary around) { 
+
+        return around.any(Species.HUMAN);
     }
 
     /**
+     * @param around The InfectedHuman's neighbourhood.
      * @return Number of humans in adjacent cells who will come into contact with this infected human
      */
-    private int numberOfNonInfected(){
-        int n = 0;
-        int row = getLocation().getRow();
-        int col = getLocation().getCol();
-        for(int roffset = -1; roffset <= 1; roffset++) {
-            int nextRow = row + roffset;
-            if(nextRow >= 0 && nextRow < getField().getDepth()) {
-                for(int coffset = -1; coffset <= 1; coffset++) {
-                    int nextCol = col + coffset;
-                    // Exclude invalid locations and the original location.
-                    if(nextCol >= 0 && nextCol < getField().getWidth() && (roffset != 0 || coffset != 0)) {
-                        Object object = getField().getObjectAt(nextRow,nextCol);
-                        if(object instanceof Human){
-                            n++;
-                        }
-                    }
-                }
-            }
-        }
-        return n;
+    private int numberOfNonInfected(NeighbourhoodSummary around){
+        return around.count(Species.HUMAN);
     }
 }
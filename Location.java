@@ -1,14 +1,24 @@
 /**
  * Represent a location in a rectangular grid.
  * 
+ * Inside the simulation a location is usually kept packed into a long,
+ * the row in the top 32 bits and the column in the bottom 32, so that
+ * moving and breeding need no objects; see pack. A Location is the
+ * boxed form, used where locations are handed in or out.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class Location
 {
+    // The packed form of no location at all; no cell packs to it.
+    public static final long NOWHERE = -1L;
+    // The multiplier that spreads packed locations over the hash codes.
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
     // Row and column positions.
-    private int row;
-    private int col;
+    private final int row;
+    private final int col;
 
     /**
      * Represent a row and column.
@@ -45,14 +55,63 @@ public class Location
     }
     
     /**
-     * Use the top 16 bits for the row value and the bottom for
-     * the column. Except for very big grids, this should give a
-     * unique hash code for each (row, col) pair.
+     * Mix the packed location, so that the hash codes of a grid of any
+     * width are spread out rather than the rows overlapping one another
+     * once the grid is more than 65536 columns wide.
      * @return A hashcode for the location.
      */
     public int hashCode()
     {
-        return (row << 16) + col;
+        return Long.hashCode(pack() * HASH_MULTIPLIER);
+    }
+
+    /**
+     * @return The location packed into a long; see pack(int, int).
+     */
+    public long pack()
+    {
+        return pack(row, col);
+    }
+
+    /**
+     * Pack a row and column into a long. Two packed locations are equal
+     * exactly when the locations are, so they can be compared and used
+     * as keys without any object.
+     * @param row The row, which must not be negative.
+     * @param col The column, which must not be negative.
+     * @return The packed location.
+     */
+    public static long pack(int row, int col)
+    {
+        return (long) row << 32 | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param packed A packed location.
+     * @return Its row.
+     */
+    public static int rowOf(long packed)
+    {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @param packed A packed location.
+     * @return Its column.
+     */
+    public static int colOf(long packed)
+    {
+        return (int) packed;
+    }
+
+    /**
+     * Box a packed location.
+     * @param packed A packed location, not NOWHERE.
+     * @return The location.
+     */
+    public static Location unpack(long packed)
+    {
+        return new Location(rowOf(packed), colOf(packed));
     }
     
     /**
@@ -0,0 +1,630 @@
+import java.awt.GraphicsEnvironment;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Microbenchmarks for the hot paths of the simulation: the neighbourhood
+ * and bitboard queries of Field, each species' act, FieldStats counting,
+ * the view's showSnapshot and whole simulation steps at several field
+ * sizes, with the sequential, the species-batched and the population
+ * store engines.
+ *
+ * Each benchmark is warmed up and then measured over twenty iterations
+ * of at least 200 ms each, so that the spread between iterations is a
+ * small part of the mean. Work that must not be timed (building a
+ * field, creating animals) is done before each run of the timed work.
+ * Alongside the time per operation the report gives the bytes allocated
+ * per operation, measured with the thread allocation counters, and the
+ * collections that ran while measuring.
+ *
+ * This harness needs nothing but the JDK. The same benchmarks also run
+ * under JMH, in forked JVMs and with its GC profiler, from the Maven
+ * build; see the JMH benchmarks in benchmarks/src.
+ *
+ * Usage: MicroBenchmarks [output-file]
+ * The results are printed and, if a file is named, also written there.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class MicroBenchmarks
+{
+    // Iterations run before measuring, and measured iterations.
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASURED_ITERATIONS = 20;
+    // The least timed work in an iteration, in nanoseconds; shorter
+    // runs are repeated, each after its set-up, until they add up to it.
+    private static final long MIN_ITERATION_NANOS = 200_000_000L;
+    // Field sizes, as depth and width, for whole-step benchmarks.
+    private static final int[][] STEP_SIZES = { { 80, 120 }, { 200, 300 }, { 500, 500 } };
+    // Fractions of cells initially occupied, for whole-step benchmarks.
+    private static final double[] STEP_DENSITIES = { 0.05, 0.32 };
+    // The fraction of cells occupied in the other benchmarks.
+    private static final double DENSITY = 0.32;
+    // The share of each species among the animals of a populated field.
+    private static final Species[] MIX_SPECIES = { Species.HUMAN, Species.DOG, Species.DARKSEEKER,
+                                                   Species.MUTANT_DOG, Species.INFECTED_HUMAN };
+    private static final double[] MIX_SHARES = { 0.31, 0.16, 0.31, 0.16, 0.06 };
+    // Size of the field used by the other benchmarks.
+    private static final int DEPTH = 80;
+    private static final int WIDTH = 120;
+    // The seed used when keying random streams.
+    private static final long SEED = Randomizer.getSeed();
+
+    // Source of per-thread allocation counts, if the JVM provides one.
+    private static final com.sun.management.ThreadMXBean allocations = allocationBean();
+
+    /**
+     * Run every benchmark.
+     * @param args Optionally, a file to write the results to.
+     * @throws IOException If the results cannot be written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-44s %12s %10s %12s %6s %8s",
+                                "benchmark", "ns/op", "+/-", "bytes/op", "gcs", "gc ms"));
+        for(Benchmark benchmark : benchmarks()) {
+            String line = benchmark.measure();
+            System.out.println(line);
+            lines.add(line);
+        }
+        if(args.length > 0) {
+            try(PrintWriter out = new PrintWriter(new FileWriter(args[0]))) {
+                out.println("# MicroBenchmarks, " + System.getProperty("java.vm.name")
+                            + " " + System.getProperty("java.version")
+                            + ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+                for(String line : lines) {
+                    out.println(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Look up a benchmark by name for a harness outside this package,
+     * such as the JMH benchmarks, which cannot name its classes.
+     * @param name The name of the benchmark, as in the report.
+     * @return Its untimed set-up, to be run before each run of its work,
+     *         and its timed work, which returns the number of operations
+     *         it performed.
+     * @throws IllegalArgumentException If there is no such benchmark.
+     */
+    public static Map.Entry<Runnable, LongSupplier> workload(String name)
+    {
+        for(Benchmark benchmark : benchmarks()) {
+            if(benchmark.name.equals(name)) {
+                return new AbstractMap.SimpleImmutableEntry<>(benchmark::setUp, benchmark::run);
+            }
+        }
+        throw new IllegalArgumentException("No such benchmark: " + name);
+    }
+
+    /**
+     * @return Every benchmark, in the order they are reported.
+     */
+    private static List<Benchmark> benchmarks()
+    {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new AdjacentLocations());
+        benchmarks.add(new FreeAdjacentLocations());
+        benchmarks.add(new NeighbourhoodCursor());
+        benchmarks.add(new NeighbourMask());
+        for(Species species : new Species[] { Species.HUMAN, Species.DOG, Species.DARKSEEKER,
+                                              Species.MUTANT_DOG, Species.INFECTED_HUMAN }) {
+            benchmarks.add(new Act(species));
+        }
+        benchmarks.add(new GenerateCounts());
+        benchmarks.add(new ShowStatus());
+        for(int[] size : STEP_SIZES) {
+            benchmarks.add(new SimulateOneStep(size[0], size[1]));
+            for(double density : STEP_DENSITIES) {
+                benchmarks.add(new EngineStep(new SequentialStepEngine(), size[0], size[1], density));
+                benchmarks.add(new EngineStep(new SpeciesBatchedStepEngine(), size[0], size[1], density));
+                benchmarks.add(new EngineStep(new PopulationStepEngine(), size[0], size[1], density));
+            }
+        }
+        return benchmarks;
+    }
+
+    /**
+     * @return The allocation-counting thread bean, or null if the JVM
+     *         does not provide one.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if(sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Bytes allocated so far by the calling thread, or 0 if unknown.
+     */
+    private static long allocatedBytes()
+    {
+        if(allocations == null) {
+            return 0;
+        }
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return The number of collections so far and their total time in
+     *         milliseconds.
+     */
+    private static long[] gcTotals()
+    {
+        long count = 0;
+        long time = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { count, time };
+    }
+
+    /**
+     * Build a field containing a random mix of animals.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param density The fraction of cells to occupy.
+     * @param animals A list to receive the animals created.
+     * @return The field.
+     */
+    private static Field populatedField(int depth, int width, double density, List<Animal> animals)
+    {
+        Field field = new Field(depth, width);
+        // Each cell takes one draw, so a row's are generated as a block.
+        double[] draws = new double[width];
+        for(int row = 0; row < depth; row++) {
+            Randomizer.begin(SEED, 0, row).nextDoubles(draws);
+            for(int col = 0; col < width; col++) {
+                double draw = draws[col] / density;
+                for(int s = 0; s < MIX_SHARES.length && draw < 1; s++) {
+                    if(draw < MIX_SHARES[s]) {
+                        animals.add(MIX_SPECIES[s].create(field, Location.pack(row, col), true));
+                        break;
+                    }
+                    draw -= MIX_SHARES[s];
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Every location of a field, row by row.
+     * @param field The field.
+     * @return Its locations.
+     */
+    private static Location[] allLocations(Field field)
+    {
+        Location[] locations = new Location[field.getDepth() * field.getWidth()];
+        int i = 0;
+        for(int row = 0; row < field.getDepth(); row++) {
+            for(int col = 0; col < field.getWidth(); col++) {
+                locations[i++] = new Location(row, col);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * A single benchmark: untimed set-up followed by timed work.
+     */
+    private abstract static class Benchmark
+    {
+        // The name reported for the benchmark.
+        private final String name;
+        // Prevents the JIT discarding results.
+        protected long sink;
+
+        /**
+         * @param name The name reported for the benchmark.
+         */
+        Benchmark(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Prepare for one iteration. Not timed.
+         */
+        abstract void setUp();
+
+        /**
+         * Do one iteration of timed work.
+         * @return The number of operations performed.
+         */
+        abstract long run();
+
+        /**
+         * @return true if the benchmark can run in this environment.
+         */
+        boolean isAvailable()
+        {
+            return true;
+        }
+
+        /**
+         * Warm up, measure and format the results.
+         * @return A line of the report.
+         */
+        String measure()
+        {
+            if(!isAvailable()) {
+                return String.format("%-44s %12s", name, "skipped");
+            }
+            for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+                iterate();
+            }
+            double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+            long totalBytes = 0;
+            long totalOps = 0;
+            long[] gcBefore = gcTotals();
+            for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+                long[] iteration = iterate();
+                totalOps += iteration[1];
+                totalBytes += iteration[2];
+                nanosPerOp[i] = (double) iteration[0] / Math.max(1, iteration[1]);
+            }
+            long[] gcAfter = gcTotals();
+
+            double mean = 0;
+            for(double value : nanosPerOp) {
+                mean += value;
+            }
+            mean /= nanosPerOp.length;
+            double variance = 0;
+            for(double value : nanosPerOp) {
+                variance += (value - mean) * (value - mean);
+            }
+            double deviation = Math.sqrt(variance / (nanosPerOp.length - 1));
+            return String.format("%-44s %12.1f %10.1f %12.1f %6d %8d", name, mean, deviation,
+                                 (double) totalBytes / Math.max(1, totalOps),
+                                 gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        }
+
+        /**
+         * Set up and run the work, again and again if need be, until at
+         * least MIN_ITERATION_NANOS of work has been timed.
+         * @return The time taken by the work, the operations performed
+         *         and the bytes allocated by the work.
+         */
+        private long[] iterate()
+        {
+            long elapsed = 0;
+            long ops = 0;
+            long bytes = 0;
+            while(elapsed < MIN_ITERATION_NANOS) {
+                setUp();
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                ops += run();
+                elapsed += System.nanoTime() - start;
+                bytes += allocatedBytes() - allocated;
+            }
+            return new long[] { elapsed, ops, bytes };
+        }
+    }
+
+    /**
+     * Field.adjacentLocations for every cell of a populated field.
+     */
+    private static class AdjacentLocations extends Benchmark
+    {
+        private Field field;
+        private Location[] locations;
+
+        AdjacentLocations()
+        {
+            super("Field.adjacentLocations");
+            field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+            locations = allLocations(field);
+        }
+
+        void setUp()
+        {
+        }
+
+        long run()
+        {
+            for(Location location : locations) {
+                sink += field.adjacentLocations(location).size();
+            }
+            return locations.length;
+        }
+    }
+
+    /**
+     * Field.getFreeAdjacentLocations for every cell of a populated field.
+     */
+    private static class FreeAdjacentLocations extends Benchmark
+    {
+        private Field field;
+        private Location[] locations;
+
+        FreeAdjacentLocations()
+        {
+            super("Field.getFreeAdjacentLocations");
+            field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+            locations = allLocations(field);
+        }
+
+        void setUp()
+        {
+        }
+
+        long run()
+        {
+            for(Location location : locations) {
+                sink += field.getFreeAdjacentLocations(location).size();
+            }
+            return locations.length;
+        }
+    }
+
+    /**
+     * A full walk of Field.neighbours for every cell of a populated field.
+     */
+    private static class NeighbourhoodCursor extends Benchmark
+    {
+        private Field field;
+
+        NeighbourhoodCursor()
+        {
+            super("Field.neighbours");
+            field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+        }
+
+        void setUp()
+        {
+        }
+
+        long run()
+        {
+            for(int row = 0; row < field.getDepth(); row++) {
+                for(int col = 0; col < field.getWidth(); col++) {
+                    Neighbourhood adjacent = field.neighbours(row, col);
+                    while(adjacent.nextFree()) {
+                        sink++;
+                    }
+                }
+            }
+            return field.getDepth() * field.getWidth();
+        }
+    }
+
+    /**
+     * Field's bitboard queries, a species count and the free mask, for
+     * every cell of a populated field.
+     */
+    private static class NeighbourMask extends Benchmark
+    {
+        private Field field;
+
+        NeighbourMask()
+        {
+            super("Field.neighbourMask");
+            field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+        }
+
+        void setUp()
+        {
+        }
+
+        long run()
+        {
+            for(int row = 0; row < field.getDepth(); row++) {
+                for(int col = 0; col < field.getWidth(); col++) {
+                    sink += field.countAround(Species.HUMAN, row, col);
+                    sink += Integer.bitCount(field.freeNeighbourMask(row, col));
+                }
+            }
+            return field.getDepth() * field.getWidth();
+        }
+    }
+
+    /**
+     * One act by every animal of a species in a freshly populated field,
+     * at the time of day when the species is active.
+     */
+    private static class Act extends Benchmark
+    {
+        private final Species species;
+        private final boolean isDay;
+        private List<Animal> actors;
+        private List<Animal> newborns;
+
+        Act(Species species)
+        {
+            super(species + ".act");
+            this.species = species;
+            isDay = species == Species.HUMAN || species == Species.DOG;
+            newborns = new ArrayList<>();
+        }
+
+        void setUp()
+        {
+            List<Animal> animals = new ArrayList<>();
+            Field field = populatedField(DEPTH, WIDTH, DENSITY, animals);
+            field.setStep(1);
+            actors = new ArrayList<>();
+            for(Animal animal : animals) {
+                if(animal.getSpecies() == species) {
+                    actors.add(animal);
+                }
+            }
+            newborns.clear();
+        }
+
+        long run()
+        {
+            for(Animal animal : actors) {
+                Randomizer.begin(SEED, 1, animal.getId());
+                animal.act(newborns, isDay);
+            }
+            return actors.size();
+        }
+    }
+
+    /**
+     * A full recount of a populated field by FieldStats.
+     */
+    private static class GenerateCounts extends Benchmark
+    {
+        private static final int REPEATS = 100;
+        private Field field;
+        private FieldStats stats;
+
+        GenerateCounts()
+        {
+            super("FieldStats.generateCounts");
+            field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+            stats = new FieldStats();
+        }
+
+        void setUp()
+        {
+        }
+
+        long run()
+        {
+            for(int i = 0; i < REPEATS; i++) {
+                if(stats.isViable(field)) {
+                    sink++;
+                }
+            }
+            return REPEATS;
+        }
+    }
+
+    /**
+     * SimulatorView.showSnapshot for a populated field, alternating day
+     * and night so every cell is redrawn. This needs a display, so it
+     * is skipped on headless machines.
+     */
+    private static class ShowStatus extends Benchmark
+    {
+        private static final int REPEATS = 20;
+        private FieldSnapshot day, night;
+        private SimulatorView view;
+
+        ShowStatus()
+        {
+            super("SimulatorView.showSnapshot");
+        }
+
+        boolean isAvailable()
+        {
+            return !GraphicsEnvironment.isHeadless();
+        }
+
+        void setUp()
+        {
+            if(view == null) {
+                Field field = populatedField(DEPTH, WIDTH, DENSITY, new ArrayList<>());
+                day = new FieldSnapshot(field, 0, true);
+                night = new FieldSnapshot(field, 1, false);
+                view = SimulatorView.withDefaultColors(DEPTH, WIDTH);
+            }
+        }
+
+        long run()
+        {
+            for(int i = 0; i < REPEATS; i++) {
+                view.showSnapshot((i & 1) == 0 ? day : night);
+            }
+            return REPEATS;
+        }
+    }
+
+    /**
+     * Whole headless simulation steps on a field of a given size.
+     */
+    private static class SimulateOneStep extends Benchmark
+    {
+        private static final int STEPS = 20;
+        private final int depth, width;
+        private Simulator simulator;
+
+        SimulateOneStep(int depth, int width)
+        {
+            super("Simulator.simulateOneStep " + depth + "x" + width);
+            this.depth = depth;
+            this.width = width;
+        }
+
+        void setUp()
+        {
+            simulator = new Simulator(depth, width, false);
+        }
+
+        long run()
+        {
+            for(int i = 0; i < STEPS; i++) {
+                simulator.simulateOneStep();
+            }
+            return STEPS;
+        }
+    }
+
+    /**
+     * Whole steps of a step engine over a field populated at a given
+     * density, without any view.
+     */
+    private static class EngineStep extends Benchmark
+    {
+        private static final int STEPS = 20;
+        private final int depth, width;
+        private final double density;
+        private final StepEngine engine;
+        private Field field;
+        private Roster animals;
+
+        EngineStep(StepEngine engine, int depth, int width, double density)
+        {
+            super(engine.getClass().getSimpleName() + ".step " + depth + "x" + width + " @" + density);
+            this.depth = depth;
+            this.width = width;
+            this.density = density;
+            this.engine = engine;
+        }
+
+        void setUp()
+        {
+            List<Animal> populated = new ArrayList<>();
+            field = populatedField(depth, width, density, populated);
+            animals = new Roster(field.getAnimalPool()::release);
+            animals.addAll(populated);
+            if(engine instanceof PopulationStepEngine) {
+                // Keep taking the animals into the store out of the timing.
+                ((PopulationStepEngine) engine).take(animals, field);
+            }
+        }
+
+        long run()
+        {
+            for(int step = 1; step <= STEPS; step++) {
+                engine.step(animals, field, step % 24 <= 12, SEED, step);
+            }
+            return STEPS;
+        }
+    }
+}
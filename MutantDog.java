@@ -1,6 +1,4 @@
 import java.util.List;
-import java.util.Iterator;
-import java.util.Random;
 
 /**
  * A simple model of a MutantDog.
@@ -25,16 +23,8 @@ public class MutantDog extends Animal
     // number of steps a MutantDog can go before it has to eat again.
     private static final int Human_FOOD_VALUE = 20;
     private static final int Dog_FOOD_VALUE = 20;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
     private static final double FEMALE_PROBABILITY = 0.5; 
 
-    // Individual characteristics (instance fields).
-    // The MutantDog's age.
-    private int age;
-    // The MutantDog's food level, which is increased by eating Humans.
-    private int foodLevel;
-
     /**
      * Create a MutantDog. A MutantDog can be created as a new born (age zero
      * and not hungry) or with a random age and food level.
@@ -44,21 +34,50 @@ public class MutantDog extends Animal
      * @param location The location within the field.
      */
     public MutantDog(boolean randomAge, Field field, Location location)
+    {
+        this(randomAge, field, location.pack());
+    }
+
+    /**
+     * Create a MutantDog at a packed location, as the constructor above does.
+     * @param randomAge If true, the MutantDog will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param location The packed location within the field.
+     */
+    MutantDog(boolean randomAge, Field field, long location)
     {
         super(field, location);
+        initialize(randomAge);
+    }
+
+    /**
+     * Create a MutantDog that is not alive and is in no field, for the state
+     * of one kept in a PopulationStore to be loaded into.
+     */
+    MutantDog()
+    {
+    }
+
+    /**
+     * Give the MutantDog its age, food level and sex.
+     * @param randomAge If true, the MutantDog will have a random age and
+     *                  food level; otherwise those of a new born.
+     */
+    void initialize(boolean randomAge)
+    {
+        RandomStream rand = Randomizer.current();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
-            foodLevel = rand.nextInt(Dog_FOOD_VALUE);
+            setAge(rand.nextInt(MAX_AGE));
+            setFoodLevel(rand.nextInt(Dog_FOOD_VALUE));
         }
         else {
-            age = 0;
-            foodLevel = Dog_FOOD_VALUE;
+            setFoodLevel(Dog_FOOD_VALUE);
         }
         if(rand.nextDouble() <= FEMALE_PROBABILITY) { 
             super.isFemale  = true; 
         } else { 
             super.isFemale = false;                        
-        } 
+        }
     }
 
     /**
@@ -70,103 +89,105 @@ public class MutantDog extends Animal
      */
     public void act(List<Animal> newMutantDogs, boolean isDay)
     {
-        incrementAge();
-        incrementHunger();
+        checkLifespan();
         if(isAlive()&&!isDay) {
-            giveBirth(newMutantDogs);            
+            NeighbourhoodSummary around = getField().summarize(getRow(), getCol());
+            giveBirth(newMutantDogs, around);            
             // Move towards a source of food if found.
-            Location newLocation = findFood();
-            if(newLocation != null) {
+            int food = findFood(around);
+            if(food >= 0) {
                 // either human or dog is found
-                Animal creature = (Animal) getField().getObjectAt(newLocation);
-                if(creature instanceof Human){
+                Animal creature = (Animal) around.getObject(food);
+                if(creature.getSpecies() == Species.HUMAN){
                     Human human = (Human) creature;
-                    human.setDead();
-                    foodLevel += Human_FOOD_VALUE;
+                    human.setDead(DeathCause.PREDATION);
+                    feed(Human_FOOD_VALUE);
                 }
                 else{
                     Dog dog = (Dog) creature;
-                    dog.setDead();
-                    foodLevel += Dog_FOOD_VALUE;
+                    dog.setDead(DeathCause.PREDATION);
+                    feed(Dog_FOOD_VALUE);
                 }
+                around.vacate(food);
             }
-            move();
+            move(around);
         }
     }
 
     /**
-     * Increase the age. This could result in the MutantDog's death.
+     * @return The MutantDog species.
      */
-    private void incrementAge()
+    public Species getSpecies()
     {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
+        return Species.MUTANT_DOG;
     }
 
     /**
-     * Make this MutantDog more hungry. This could result in the MutantDog's death.
+     * @return The age to which a MutantDog can live.
      */
-    private void incrementHunger()
+    int getMaxAge()
     {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
-        }
+        return MAX_AGE;
+    }
+
+    /**
+     * Set the MutantDog's age and food level, e.g. from a checkpoint.
+     * @param age The age.
+     * @param foodLevel The food level.
+     */
+    void restoreState(int age, int foodLevel)
+    {
+        setAge(age);
+        setFoodLevel(foodLevel);
     }
 
     /**
      * Look for Humans adjacent to the current location.
      * Only the first live Human is eaten.
-     * @return Where food was found, or null if it wasn't.
+     * @param around The MutantDog's neighbourhood.
+     * @return The neighbour where food was found, or -1 if it wasn't.
      */
-    private Location findFood()
+    private int findFood(NeighbourhoodSummary around)
     {
-        List<Location> adjacent = getField().adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = getField().getObjectAt(where);
-            if(animal instanceof Human) {
-                return where;
-            }
-            else
-            if(animal instanceof Dog) {
-                return where;
-            }
+        int prey = around.getMask(Species.HUMAN) | around.getMask(Species.DOG);
+        if(prey == 0) {
+            return -1;
         }
-        return null;
+        return around.choose(prey);
     }
 
     /**
      * Check whether or not this MutantDog is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param newMutantDogs A list to return newly born MutantDogs.
+     * @param around The MutantDog's neighbourhood.
      */
-    private void giveBirth(List<Animal> newMutantDogs)
+    private void giveBirth(List<Animal> newMutantDogs, NeighbourhoodSummary around)
     {
-        // New MutantDogs are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            MutantDog young = new MutantDog(false, field, loc);
-            newMutantDogs.add(young);
+        // New MutantDogs are born into adjacent free locations.
+        int births = breed(around);
+        if(births > 0) {
+            Field field = getField();
+            for(int b = 0; b < births && around.hasFree(); b++) {
+                Animal young = field.getAnimalPool().obtain(Species.MUTANT_DOG, field,
+                                                            around.takeFree(Species.MUTANT_DOG));
+                field.getEvents().recordBirth(Species.MUTANT_DOG);
+                newMutantDogs.add(young);
+            }
         }
     }
 
     /**
      * Generate a number representing the number of births,
      * if it can breed.
+     * @param around The MutantDog's neighbourhood.
      * @return The number of births (may be zero).
      */
-    private int breed()
+    private int breed(NeighbourhoodSummary around)
     {
+        RandomStream rand = Randomizer.current();
         int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
+        if(canBreed(around) && rand.nextDouble() <= BREEDING_PROBABILITY) {
             births = rand.nextInt(MAX_LITTER_SIZE) + 1;
         }
         return births;
@@ -174,22 +195,19 @@ public class MutantDog extends Animal
 
     /**
      * A MutantDog can breed if it has reached the breeding age.
+     * @param around The MutantDog's neighbourhood.
      * @return true if two adjacent animals are of the opposite sex and so can breed, otherwise false. 
      */
-    private boolean canBreed() { 
-
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof MutantDog) {
-                MutantDog mutantDog = (MutantDog) animal;
-
-                if(age >= BREEDING_AGE && (mutantDog.getIsFemale() && !this.getIsFemale()) || (!mutantDog.getIsFemale() && this.getIsFemale()) ) {
-                    return true; 
-                }
+    private boolean canBreed(NeighbourhoodSummary around) { 
+
+        int mates = around.getMask(Species.MUTANT_DOG);
+        while(mates != 0) {
+            int neighbour = Integer.numberOfTrailingZeros(mates);
+            mates &= mates - 1;
+            MutantDog mutantDog = (MutantDog) around.getObject(neighbour);
+
+            if(getAge() >= BREEDING_AGE && (mutantDog.getIsFemale() && !this.getIsFemale()) || (!mutantDog.getIsFemale() && this.getIsFemale()) ) {
+                return true; 
             }
         }
         return false;
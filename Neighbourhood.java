@@ -0,0 +1,266 @@
+/**
+ * A reusable cursor over the Moore neighbourhood (the eight surrounding
+ * cells) of a location in a field. Each call to start picks one of the
+ * 8! orderings of the neighbour offsets from a precomputed table, so the
+ * neighbours are visited in a uniformly random order without building
+ * lists, shuffling them or allocating Location objects.
+ *
+ * The order is drawn from the random stream of the thread that created
+ * the cursor, so a cursor must only be used on that thread; Field hands
+ * out one per thread, bound to the field asked.
+ *
+ * Typical use:
+ *     Neighbourhood cursor = field.neighbours(location);
+ *     while(cursor.next()) {
+ *         Object animal = cursor.getObject();
+ *         ...
+ *     }
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class Neighbourhood
+{
+    // The number of cells in a Moore neighbourhood.
+    private static final int SIZE = 8;
+    // Row and column offsets of the neighbours, indexed 0..7.
+    private static final int[] ROW_OFFSETS = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] COL_OFFSETS = { -1, 0, 1, -1, 1, -1, 0, 1 };
+    // The number of distinct orderings of the neighbours (8!).
+    private static final int PERMUTATION_COUNT = 40320;
+    // Every ordering of the offset indices, SIZE entries per ordering.
+    private static final byte[] PERMUTATIONS = buildPermutations();
+    // The field being looked at.
+    private Field field;
+    // The creating thread's stream, for choosing an ordering.
+    private final RandomStream rand;
+    // The centre of the neighbourhood.
+    private int row, col;
+    // Start of the chosen ordering within PERMUTATIONS.
+    private int base;
+    // How many offsets of the ordering have been consumed.
+    private int index;
+    // The neighbour the cursor is currently positioned on.
+    private int currentRow, currentCol;
+
+    /**
+     * Create a cursor, to be bound to a field before it is started.
+     */
+    public Neighbourhood()
+    {
+        rand = Randomizer.current();
+    }
+
+    /**
+     * Look at neighbourhoods of the given field from now on.
+     * @param field The field to be looked at.
+     * @return This cursor.
+     */
+    public Neighbourhood bind(Field field)
+    {
+        this.field = field;
+        return this;
+    }
+
+    /**
+     * Position the cursor before the first neighbour of the given
+     * location, choosing a fresh random order.
+     * @param location The centre of the neighbourhood.
+     * @return This cursor.
+     */
+    public Neighbourhood start(Location location)
+    {
+        assert location != null : "Null location passed to Neighbourhood.start";
+        return start(location.getRow(), location.getCol());
+    }
+
+    /**
+     * Position the cursor before the first neighbour of the given
+     * cell, choosing a fresh random order.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return This cursor.
+     */
+    public Neighbourhood start(int row, int col)
+    {
+        this.row = row;
+        this.col = col;
+        base = rand.nextInt(PERMUTATION_COUNT) * SIZE;
+        index = 0;
+        return this;
+    }
+
+    /**
+     * Advance to the next neighbour that lies within the field.
+     * @return true if the cursor is on a neighbour, false if the
+     *         neighbourhood is exhausted.
+     */
+    public boolean next()
+    {
+        int depth = field.getDepth();
+        int width = field.getWidth();
+        while(index < SIZE) {
+            int offset = PERMUTATIONS[base + index];
+            index++;
+            int nextRow = row + ROW_OFFSETS[offset];
+            int nextCol = col + COL_OFFSETS[offset];
+            if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width) {
+                currentRow = nextRow;
+                currentCol = nextCol;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advance to the next neighbour that is unoccupied.
+     * @return true if the cursor is on a free neighbour, false if there
+     *         are no more free neighbours.
+     */
+    public boolean nextFree()
+    {
+        while(next()) {
+            if(isFree()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The row of the current neighbour.
+     */
+    public int getRow()
+    {
+        return currentRow;
+    }
+
+    /**
+     * @return The column of the current neighbour.
+     */
+    public int getCol()
+    {
+        return currentCol;
+    }
+
+    /**
+     * Return the current neighbour as a Location. This allocates, so
+     * it should only be used once a neighbour has been chosen.
+     * @return The location of the current neighbour.
+     */
+    public Location getLocation()
+    {
+        return new Location(currentRow, currentCol);
+    }
+
+    /**
+     * @return The occupant of the current neighbour, or null.
+     */
+    public Object getObject()
+    {
+        return field.getObjectAt(currentRow, currentCol);
+    }
+
+    /**
+     * @return The species code of the current neighbour's occupant,
+     *         or Species.EMPTY.
+     */
+    public int getSpeciesCode()
+    {
+        return field.getSpeciesAt(currentRow, currentCol);
+    }
+
+    /**
+     * Test whether the current neighbour holds the given species.
+     * @param species The species to test for.
+     * @return true if the occupant is of that species.
+     */
+    public boolean holds(Species species)
+    {
+        return field.getSpeciesAt(currentRow, currentCol) == species.getCode();
+    }
+
+    /**
+     * @return true if the current neighbour is unoccupied.
+     */
+    public boolean isFree()
+    {
+        return field.isEmpty(currentRow, currentCol);
+    }
+
+    /**
+     * Return the row offset of a neighbour, numbered as in the masks
+     * of Field.neighbourMask: 0 to 2 are the row above, left to right,
+     * 3 and 4 the cells to the left and right, 5 to 7 the row below.
+     * @param neighbour The neighbour's number, 0 to 7.
+     * @return Its row offset from the centre.
+     */
+    public static int rowOffset(int neighbour)
+    {
+        return ROW_OFFSETS[neighbour];
+    }
+
+    /**
+     * Return the column offset of a neighbour, numbered as for rowOffset.
+     * @param neighbour The neighbour's number, 0 to 7.
+     * @return Its column offset from the centre.
+     */
+    public static int colOffset(int neighbour)
+    {
+        return COL_OFFSETS[neighbour];
+    }
+
+    /**
+     * Choose one of the neighbours in a mask uniformly at random.
+     * @param mask A non-empty mask of neighbours, as from Field.neighbourMask.
+     * @param rand The stream to draw from.
+     * @return The number of the chosen neighbour.
+     */
+    public static int randomNeighbour(int mask, RandomStream rand)
+    {
+        assert mask != 0 : "No neighbour to choose from";
+        for(int skip = rand.nextInt(Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Build the table of every ordering of the offset indices by
+     * stepping through them in lexicographic order.
+     * @return The orderings, SIZE bytes each.
+     */
+    private static byte[] buildPermutations()
+    {
+        byte[] table = new byte[PERMUTATION_COUNT * SIZE];
+        byte[] current = new byte[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            current[i] = (byte) i;
+        }
+        for(int p = 0; p < PERMUTATION_COUNT; p++) {
+            System.arraycopy(current, 0, table, p * SIZE, SIZE);
+            // Find the rightmost ascent and step to the next ordering.
+            int i = SIZE - 2;
+            while(i >= 0 && current[i] > current[i + 1]) {
+                i--;
+            }
+            if(i < 0) {
+                break;
+            }
+            int j = SIZE - 1;
+            while(current[j] < current[i]) {
+                j--;
+            }
+            byte swap = current[i];
+            current[i] = current[j];
+            current[j] = swap;
+            for(int lo = i + 1, hi = SIZE - 1; lo < hi; lo++, hi--) {
+                swap = current[lo];
+                current[lo] = current[hi];
+                current[hi] = swap;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * What surrounds an animal: which of its eight neighbours are free and
+ * which hold each species, read from the field's bitboards a row of
+ * the neighbourhood at a time. An animal scans its neighbourhood once
+ * when it acts and then makes every decision of that act (whether it
+ * can breed, where its young go, what it eats, where it moves) from the
+ * summary, telling the summary as it fills or empties a neighbouring
+ * cell so later decisions see the change, rather than scanning the
+ * field again for each decision.
+ *
+ * Neighbours are numbered 0 to 7 and given as bit masks, as for
+ * Field.neighbourMask. Random choices are drawn from the random stream
+ * of the thread that created the summary, so, like a Neighbourhood, a
+ * summary must only be used on that thread; Field hands out one per
+ * thread, bound to the field asked.
+ *
+ * Typical use:
+ *     NeighbourhoodSummary around = field.summarize(row, col);
+ *     if(around.any(Species.HUMAN)) {
+ *         ...
+ *     }
+ *     long next = around.takeFree(species);
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class NeighbourhoodSummary
+{
+    // The field being looked at.
+    private Field field;
+    // The creating thread's stream, for random choices.
+    private final RandomStream rand;
+    // The neighbours holding each species, indexed by code; the mask
+    // for Species.EMPTY holds the free neighbours.
+    private final int[] masks;
+    // The centre of the neighbourhood.
+    private int row, col;
+
+    /**
+     * Create a summary, to be bound to a field before it is scanned.
+     */
+    public NeighbourhoodSummary()
+    {
+        rand = Randomizer.current();
+        masks = new int[Species.codeCount()];
+    }
+
+    /**
+     * Read neighbourhoods of the given field from now on.
+     * @param field The field to be looked at.
+     * @return This summary.
+     */
+    public NeighbourhoodSummary bind(Field field)
+    {
+        this.field = field;
+        return this;
+    }
+
+    /**
+     * Read the neighbourhood of a location from the field.
+     * @param location The centre of the neighbourhood.
+     * @return This summary.
+     */
+    public NeighbourhoodSummary scan(Location location)
+    {
+        return scan(location.getRow(), location.getCol());
+    }
+
+    /**
+     * Read the neighbourhood of a cell from the field.
+     * @param row The row of the centre.
+     * @param col The column of the centre.
+     * @return This summary.
+     */
+    public NeighbourhoodSummary scan(int row, int col)
+    {
+        this.row = row;
+        this.col = col;
+        field.neighbourMasks(row, col, masks);
+        return this;
+    }
+
+    /**
+     * @param species A species.
+     * @return The mask of neighbours holding it.
+     */
+    public int getMask(Species species)
+    {
+        return masks[species.getCode()];
+    }
+
+    /**
+     * @return The mask of free neighbours.
+     */
+    public int getFreeMask()
+    {
+        return masks[Species.EMPTY];
+    }
+
+    /**
+     * @param species A species.
+     * @return How many neighbours hold it.
+     */
+    public int count(Species species)
+    {
+        return Integer.bitCount(masks[species.getCode()]);
+    }
+
+    /**
+     * @param species A species.
+     * @return true if any neighbour holds it.
+     */
+    public boolean any(Species species)
+    {
+        return masks[species.getCode()] != 0;
+    }
+
+    /**
+     * @return true if any neighbour is free.
+     */
+    public boolean hasFree()
+    {
+        return masks[Species.EMPTY] != 0;
+    }
+
+    /**
+     * Choose one of the neighbours in a mask uniformly at random.
+     * @param mask A non-empty mask of neighbours.
+     * @return The number of the chosen neighbour.
+     */
+    public int choose(int mask)
+    {
+        return Neighbourhood.randomNeighbour(mask, rand);
+    }
+
+    /**
+     * Choose a free neighbour at random and record that it now holds
+     * the given species; the caller must then place an animal there.
+     * @param species The species that will occupy it.
+     * @return Its packed location, or Location.NOWHERE if no neighbour
+     *         is free.
+     */
+    public long takeFree(Species species)
+    {
+        if(!hasFree()) {
+            return Location.NOWHERE;
+        }
+        int neighbour = choose(masks[Species.EMPTY]);
+        occupy(neighbour, species);
+        return getPackedLocation(neighbour);
+    }
+
+    /**
+     * Record that a neighbour now holds the given species.
+     * @param neighbour The neighbour's number.
+     * @param species Its new occupant's species.
+     */
+    public void occupy(int neighbour, Species species)
+    {
+        set(neighbour, species.getCode());
+    }
+
+    /**
+     * Record that a neighbour is now free.
+     * @param neighbour The neighbour's number.
+     */
+    public void vacate(int neighbour)
+    {
+        set(neighbour, Species.EMPTY);
+    }
+
+    /**
+     * Return a neighbour as a Location. This allocates, so it should
+     * only be used once a neighbour has been chosen.
+     * @param neighbour The neighbour's number.
+     * @return Its location.
+     */
+    public Location getLocation(int neighbour)
+    {
+        return Location.unpack(getPackedLocation(neighbour));
+    }
+
+    /**
+     * @param neighbour The neighbour's number.
+     * @return Its location, packed.
+     */
+    public long getPackedLocation(int neighbour)
+    {
+        return Location.pack(row + Neighbourhood.rowOffset(neighbour), col + Neighbourhood.colOffset(neighbour));
+    }
+
+    /**
+     * @param neighbour The neighbour's number.
+     * @return The object occupying it in the field, or null.
+     */
+    public Object getObject(int neighbour)
+    {
+        return field.getObjectAt(row + Neighbourhood.rowOffset(neighbour), col + Neighbourhood.colOffset(neighbour));
+    }
+
+    /**
+     * Move a neighbour's bit to the mask of the given code.
+     * @param neighbour The neighbour's number.
+     * @param code The code of its new occupant, or Species.EMPTY.
+     */
+    private void set(int neighbour, int code)
+    {
+        int bit = 1 << neighbour;
+        for(int i = 0; i < masks.length; i++) {
+            masks[i] &= ~bit;
+        }
+        masks[code] |= bit;
+    }
+}
@@ -0,0 +1,366 @@
+import java.util.Arrays;
+
+/**
+ * The animals of a simulation kept as parallel arrays of primitives
+ * instead of as objects: for each animal its species, its row and
+ * column, its identifier, the steps at which it was born and will
+ * starve, and whether it is alive and female. Together with its place
+ * in the order of acting, an animal costs about 30 bytes, against some
+ * 52 for an Animal object and the reference to it in a Roster, so a
+ * field of tens of millions of animals fits where their objects would
+ * not.
+ *
+ * Each animal is known by a handle, the index of its entries in the
+ * arrays, which is also the entity index it is placed in the field
+ * with. An animal keeps its handle while it lives. Like a Roster, the
+ * store keeps the animals in the order they act, with the young born
+ * during a step waiting in a nursery until admitNewborns, and drops
+ * the dead only in removeDead, so a handle seen during a step refers to
+ * the same animal for the rest of the step. The handles of the animals
+ * dropped are then reused for later births. The nursery is the end of
+ * the array holding the order, and the free handles are chained through
+ * the rows of their dead animals, so neither costs more memory, and the
+ * arrays grow by half at a time.
+ *
+ * The species' rules are not repeated here: a PopulationStepEngine
+ * loads an animal into an Animal object of its species to let it act,
+ * and saves it back afterwards.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class PopulationStore
+{
+    // The capacity of a new store.
+    private static final int INITIAL_CAPACITY = 256;
+    // The bits of an animal's flags.
+    private static final byte ALIVE = 1;
+    private static final byte FEMALE = 2;
+    // The end of the chain of free handles.
+    private static final int NONE = -1;
+
+    // For each handle, the species code of its animal, its flags, its
+    // row and column, its identifier, and the steps at which it was born
+    // and will starve (Animal.NEVER if it does not eat).
+    private byte[] species;
+    private byte[] flags;
+    private int[] rows;
+    private int[] cols;
+    private long[] ids;
+    private int[] birthSteps;
+    private int[] starvationSteps;
+    // The number of handles ever given out; the arrays are unused from
+    // here on.
+    private int handles;
+    // The first of the handles of animals dropped, free to be given out
+    // again, or NONE; the rows of each hold the next. The number of them.
+    private int freeHandle;
+    private int freeCount;
+    // The handles of the animals, in the order they act, followed by
+    // those of the young born since newborns were last admitted. The
+    // number of animals, including any that have died since the last
+    // removeDead, and the number of young.
+    private int[] order;
+    private int size;
+    private int born;
+
+    /**
+     * Create an empty store.
+     */
+    public PopulationStore()
+    {
+        species = new byte[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        rows = new int[INITIAL_CAPACITY];
+        cols = new int[INITIAL_CAPACITY];
+        ids = new long[INITIAL_CAPACITY];
+        birthSteps = new int[INITIAL_CAPACITY];
+        starvationSteps = new int[INITIAL_CAPACITY];
+        order = new int[INITIAL_CAPACITY];
+        freeHandle = NONE;
+    }
+
+    /**
+     * Take an animal's place: keep its state under a new handle and put
+     * the handle in its cell of the field in place of the object. The
+     * animal is not changed, and may be dropped or detached.
+     * @param animal A living animal in field.
+     * @param field The field.
+     * @return The animal's handle.
+     * @throws IllegalStateException If the store holds as many animals
+     *                               as the field can index.
+     */
+    private int keep(Animal animal, Field field)
+    {
+        int handle = newHandle();
+        long location = animal.getPackedLocation();
+        species[handle] = (byte) animal.getSpecies().getCode();
+        flags[handle] = (byte) (ALIVE | (animal.getIsFemale() ? FEMALE : 0));
+        rows[handle] = Location.rowOf(location);
+        cols[handle] = Location.colOf(location);
+        ids[handle] = animal.getId();
+        birthSteps[handle] = animal.getBirthStep();
+        starvationSteps[handle] = animal.getStarvationStep();
+        field.place(animal.getSpecies(), handle, rows[handle], cols[handle]);
+        return handle;
+    }
+
+    /**
+     * Take an animal's place, as the last to act so far.
+     * @param animal A living animal in field.
+     * @param field The field.
+     * @return The animal's handle.
+     * @throws IllegalStateException If the store holds as many animals
+     *                               as the field can index, or young
+     *                               wait in the nursery.
+     */
+    public int add(Animal animal, Field field)
+    {
+        if(born > 0) {
+            throw new IllegalStateException("Cannot add an animal while newborns wait");
+        }
+        int handle = keep(animal, field);
+        growOrder(size + 1);
+        order[size++] = handle;
+        return handle;
+    }
+
+    /**
+     * Take the place of an animal born during the step, putting it in
+     * the nursery.
+     * @param animal A living animal in field.
+     * @param field The field.
+     * @return The animal's handle.
+     * @throws IllegalStateException If the store holds as many animals
+     *                               as the field can index.
+     */
+    public int addNewborn(Animal animal, Field field)
+    {
+        int handle = keep(animal, field);
+        growOrder(size + born + 1);
+        order[size + born++] = handle;
+        return handle;
+    }
+
+    /**
+     * Make room for a number of animals to be added without the arrays
+     * growing, e.g. before taking a whole roster, so that the arrays are
+     * no larger than they need be.
+     * @param more The number of animals to make room for.
+     */
+    public void reserve(int more)
+    {
+        long needed = (long) handles - freeCount + more;
+        if(needed > species.length) {
+            resize((int) Math.min(needed, Field.MAX_ENTITY + 1L));
+        }
+        if((long) size + born + more > order.length) {
+            order = Arrays.copyOf(order, (int) Math.min((long) size + born + more, Field.MAX_ENTITY + 1L));
+        }
+    }
+
+    /**
+     * Make sure the order has room for a number of handles.
+     * @param needed The number.
+     */
+    private void growOrder(int needed)
+    {
+        if(needed > order.length) {
+            order = Arrays.copyOf(order, grown(order.length));
+        }
+    }
+
+    /**
+     * @param capacity The capacity of an array.
+     * @return The capacity to grow it to: half as much again, but no
+     *         more than the field can index.
+     */
+    private static int grown(int capacity)
+    {
+        return (int) Math.min(capacity + (capacity >> 1) + 1L, Field.MAX_ENTITY + 1L);
+    }
+
+    /**
+     * @return A handle free to be given out, growing the arrays if need be.
+     * @throws IllegalStateException If the field can index no more.
+     */
+    private int newHandle()
+    {
+        if(freeHandle != NONE) {
+            int handle = freeHandle;
+            freeHandle = rows[handle];
+            freeCount--;
+            return handle;
+        }
+        if(handles > Field.MAX_ENTITY) {
+            throw new IllegalStateException("A store can hold at most " + (Field.MAX_ENTITY + 1L)
+                                            + " animals");
+        }
+        if(handles == species.length) {
+            resize(grown(handles));
+        }
+        return handles++;
+    }
+
+    /**
+     * Change the number of handles the arrays have room for.
+     * @param capacity The new number, at least the handles given out.
+     */
+    private void resize(int capacity)
+    {
+        species = Arrays.copyOf(species, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+        cols = Arrays.copyOf(cols, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        birthSteps = Arrays.copyOf(birthSteps, capacity);
+        starvationSteps = Arrays.copyOf(starvationSteps, capacity);
+    }
+
+    /**
+     * Make an Animal object of the animal's species stand for it,
+     * alive in its cell of field.
+     * @param handle The animal's handle.
+     * @param animal An animal of its species, e.g. from createBlank.
+     * @param field The field the store's animals are in.
+     */
+    public void load(int handle, Animal animal, Field field)
+    {
+        animal.load(field, Location.pack(rows[handle], cols[handle]), ids[handle], birthSteps[handle],
+                    starvationSteps[handle], (flags[handle] & FEMALE) != 0);
+    }
+
+    /**
+     * Keep what has happened to an animal while an object stood for it:
+     * where it has moved, what it has eaten, and whether it has died.
+     * @param handle The animal's handle.
+     * @param animal The object loaded with it.
+     */
+    public void save(int handle, Animal animal)
+    {
+        if(animal.isAlive()) {
+            long location = animal.getPackedLocation();
+            rows[handle] = Location.rowOf(location);
+            cols[handle] = Location.colOf(location);
+            starvationSteps[handle] = animal.getStarvationStep();
+        }
+        else {
+            flags[handle] &= ~ALIVE;
+        }
+    }
+
+    /**
+     * Make a new Animal object for an animal, alive and in its cell of
+     * field in place of the handle, e.g. to hand the animals back to a
+     * Roster.
+     * @param handle The animal's handle.
+     * @param field The field the store's animals are in.
+     * @return The object.
+     */
+    public Animal toAnimal(int handle, Field field)
+    {
+        Animal animal = getSpecies(handle).createBlank();
+        load(handle, animal, field);
+        field.place(animal, rows[handle], cols[handle]);
+        return animal;
+    }
+
+    /**
+     * Return the handle of the animal at a position in the order of
+     * acting.
+     * @param index The position.
+     * @return The handle of the animal, which may have died.
+     */
+    public int get(int index)
+    {
+        if(index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of a store of " + size);
+        }
+        return order[index];
+    }
+
+    /**
+     * @return The number of animals, including any that have died since
+     *         the last removeDead, but not those in the nursery.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param handle An animal's handle.
+     * @return true if the animal is alive.
+     */
+    public boolean isAlive(int handle)
+    {
+        return (flags[handle] & ALIVE) != 0;
+    }
+
+    /**
+     * @param handle An animal's handle.
+     * @return The animal's species.
+     */
+    public Species getSpecies(int handle)
+    {
+        return Species.fromCode(species[handle]);
+    }
+
+    /**
+     * @param handle An animal's handle.
+     * @return The animal's identifier, which keys its random stream.
+     */
+    public long getId(int handle)
+    {
+        return ids[handle];
+    }
+
+    /**
+     * Move the young in the nursery to the end of the order of acting,
+     * in the order they were born, and empty the nursery.
+     */
+    public void admitNewborns()
+    {
+        size += born;
+        born = 0;
+    }
+
+    /**
+     * Drop every dead animal in one pass, keeping the others in order,
+     * and free their handles for reuse. Young still in the nursery are
+     * not dropped.
+     * @return The number of animals dropped.
+     */
+    public int removeDead()
+    {
+        int kept = 0;
+        for(int i = 0; i < size; i++) {
+            int handle = order[i];
+            if((flags[handle] & ALIVE) != 0) {
+                order[kept++] = handle;
+            }
+            else {
+                rows[handle] = freeHandle;
+                freeHandle = handle;
+                freeCount++;
+            }
+        }
+        System.arraycopy(order, size, order, kept, born);
+        int dropped = size - kept;
+        size = kept;
+        return dropped;
+    }
+
+    /**
+     * Forget every animal, e.g. because the field they were in has been
+     * cleared. The field is not changed.
+     */
+    public void clear()
+    {
+        handles = 0;
+        freeHandle = NONE;
+        freeCount = 0;
+        size = 0;
+        born = 0;
+    }
+}
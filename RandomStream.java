@@ -0,0 +1,110 @@
+/**
+ * A small, fast, deterministic random number generator whose sequence
+ * is entirely determined by a 64-bit key. It steps a counter by a fixed
+ * odd constant and scrambles it with the SplitMix64 finaliser, so
+ * streams with different keys are statistically independent and a
+ * stream can be re-keyed in place instead of allocating a new generator.
+ * 
+ * Streams are not thread-safe; each thread should use its own, as
+ * provided by Randomizer.current().
+ * 
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class RandomStream
+{
+    // The counter increment: the odd integer closest to 2^64 / phi.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // Scale from 53 random bits to a double in [0, 1).
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // The counter.
+    private long state;
+
+    /**
+     * Create a stream with the given key.
+     * @param key The key determining the stream.
+     */
+    public RandomStream(long key)
+    {
+        state = key;
+    }
+
+    /**
+     * Restart the stream with a new key.
+     * @param key The key determining the stream.
+     */
+    public void reset(long key)
+    {
+        state = key;
+    }
+
+    /**
+     * Derive the key of the stream for one entity at one step of a run.
+     * @param seed The seed of the run.
+     * @param step The step number.
+     * @param id An identifier of the entity, cell or row.
+     * @return A well-mixed key.
+     */
+    public static long key(long seed, long step, long id)
+    {
+        return mix(mix(seed + mix(step + GOLDEN_GAMMA)) + id);
+    }
+
+    /**
+     * @return The next 64 random bits.
+     */
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Return a random int between 0 (inclusive) and bound (exclusive).
+     * @param bound The upper bound. Must be positive.
+     * @return A random int in [0, bound).
+     */
+    public int nextInt(int bound)
+    {
+        // Scale 31 random bits into the range; the bias is below 2^-31.
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * @return A random double between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Fill an array with random doubles in [0, 1): the values the same
+     * number of calls to nextDouble would return, in order. This is
+     * cheaper than calling nextDouble repeatedly when a block of values
+     * is needed.
+     * @param block The array to fill.
+     */
+    public void nextDoubles(double[] block)
+    {
+        long s = state;
+        for(int i = 0; i < block.length; i++) {
+            s += GOLDEN_GAMMA;
+            block[i] = (mix(s) >>> 11) * DOUBLE_UNIT;
+        }
+        state = s;
+    }
+
+    /**
+     * The SplitMix64 finaliser.
+     * @param z The value to scramble.
+     * @return The scrambled value.
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -5,6 +5,12 @@ import java.util.Random;
  * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
  * 'useShared' to false to get different random behaviour every time.
  * 
+ * The simulation itself draws from per-thread RandomStreams, which are
+ * re-keyed from the run's seed, the step number and an entity id before
+ * each use (see begin). Every decision an animal makes then depends only
+ * on those three values, not on what other threads or animals have drawn,
+ * so runs are reproducible however many threads they use.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
@@ -16,6 +22,9 @@ public class Randomizer
     private static final Random rand = new Random(SEED);
     // Determine whether a shared random generator is to be provided.
     private static final boolean useShared = true;
+    // Each thread's keyed stream.
+    private static final ThreadLocal<RandomStream> streams =
+        ThreadLocal.withInitial(() -> new RandomStream(SEED));
 
     /**
      * Constructor for objects of class Randomizer
@@ -38,6 +47,38 @@ public class Randomizer
         }
     }
     
+    /**
+     * @return The default seed of a simulation run.
+     */
+    public static long getSeed()
+    {
+        return SEED;
+    }
+
+    /**
+     * Return the calling thread's random stream, positioned wherever the
+     * last call to begin on this thread left it.
+     * @return The thread's stream.
+     */
+    public static RandomStream current()
+    {
+        return streams.get();
+    }
+
+    /**
+     * Re-key the calling thread's stream for one entity at one step.
+     * @param seed The seed of the run.
+     * @param step The step number.
+     * @param id An identifier of the entity, cell or row.
+     * @return The thread's stream, ready to draw from.
+     */
+    public static RandomStream begin(long seed, long step, long id)
+    {
+        RandomStream stream = streams.get();
+        stream.reset(RandomStream.key(seed, step, id));
+        return stream;
+    }
+    
     /**
      * Reset the randomization.
      * This will have no effect if randomization is not through
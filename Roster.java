@@ -0,0 +1,170 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * The animals that act in a simulation, in the order they act, as an
+ * array that the step engines walk by position.
+ *
+ * Animals are never removed one at a time. An animal that dies, whether
+ * in its own act or killed by another animal, keeps its position until
+ * removeDead drops every dead animal in one pass, keeping the order of
+ * the rest, so a position seen during a step refers to the same animal
+ * for the rest of the step and a step in which many animals die costs
+ * no more than any other. Young born during a step are collected in a
+ * nursery that is reused from step to step and joins the end of the
+ * roster when admitNewborns is called. The dead animals dropped can be
+ * handed on, e.g. to an AnimalPool, to be reused for later births.
+ *
+ * Typical use by a step engine:
+ *     List<Animal> nursery = roster.getNursery();
+ *     for(int i = 0; i < roster.size(); i++) {
+ *         roster.get(i).act(nursery, isDay);
+ *     }
+ *     roster.admitNewborns();
+ *     roster.removeDead();
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class Roster extends AbstractList<Animal> implements RandomAccess
+{
+    // The capacity of a new roster.
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The animals, in the order they act; positions from size on are null.
+    private Animal[] members;
+    // The number of animals.
+    private int size;
+    // The young born since newborns were last admitted.
+    private final List<Animal> nursery;
+    // What is done with each dead animal dropped, or null for nothing.
+    private final Consumer<? super Animal> reclaimer;
+
+    /**
+     * Create an empty roster whose dead animals are simply dropped.
+     */
+    public Roster()
+    {
+        this(null);
+    }
+
+    /**
+     * Create an empty roster which hands each dead animal it drops on.
+     * @param reclaimer What to do with each dead animal once it has been
+     *                  dropped, or null for nothing.
+     */
+    public Roster(Consumer<? super Animal> reclaimer)
+    {
+        members = new Animal[INITIAL_CAPACITY];
+        nursery = new ArrayList<>();
+        this.reclaimer = reclaimer;
+    }
+
+    /**
+     * Return the animal at a position.
+     * @param index The position.
+     * @return The animal, which may have died.
+     */
+    @Override
+    public Animal get(int index)
+    {
+        if(index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of a roster of " + size);
+        }
+        return members[index];
+    }
+
+    /**
+     * @return The number of animals, including any that have died since
+     *         the last removeDead.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Add an animal to the end of the roster.
+     * @param animal The animal.
+     * @return true.
+     */
+    @Override
+    public boolean add(Animal animal)
+    {
+        if(size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        members[size++] = animal;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Remove every animal, and any young in the nursery, without handing
+     * any to the reclaimer.
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(members, 0, size, null);
+        size = 0;
+        nursery.clear();
+        modCount++;
+    }
+
+    /**
+     * Return the nursery, into which acting animals put their young.
+     * It is kept from step to step, so it must not be held on to.
+     * @return The nursery.
+     */
+    public List<Animal> getNursery()
+    {
+        return nursery;
+    }
+
+    /**
+     * Move the young in the nursery to the end of the roster, in the
+     * order they were born, and empty the nursery.
+     */
+    public void admitNewborns()
+    {
+        int born = nursery.size();
+        if(size + born > members.length) {
+            members = Arrays.copyOf(members, Math.max(size * 2, size + born));
+        }
+        for(int i = 0; i < born; i++) {
+            members[size++] = nursery.get(i);
+        }
+        nursery.clear();
+        modCount++;
+    }
+
+    /**
+     * Drop every dead animal in one pass, keeping the others in order,
+     * and hand those dropped to the reclaimer.
+     * @return The number of animals dropped.
+     */
+    public int removeDead()
+    {
+        int kept = 0;
+        for(int i = 0; i < size; i++) {
+            Animal animal = members[i];
+            if(animal.isAlive()) {
+                members[kept++] = animal;
+            }
+            else if(reclaimer != null) {
+                reclaimer.accept(animal);
+            }
+        }
+        int dropped = size - kept;
+        Arrays.fill(members, kept, size, null);
+        size = kept;
+        modCount++;
+        return dropped;
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * A macro-benchmark of how whole headless simulations scale with the
+ * size of the field, how densely it is populated at the start and the
+ * number of threads stepping it.
+ *
+ * For every combination, a Simulator is created (which populates the
+ * field), stepped a few times to warm up and then measured over a
+ * number of steps. Each result gives the cells and animals updated per
+ * second, the median and 99th percentile step times, the peak heap
+ * used and the time spent collecting garbage while measuring. One
+ * thread steps with a SequentialStepEngine; more threads step with a
+ * TiledStepEngine on a pool of that size.
+ *
+ * The results are CSV, one line per combination, so that runs of
+ * different releases can be compared by script. A combination that
+ * does not fit in the heap is reported as such and the others carry on;
+ * the largest fields need a large heap, e.g. -Xmx16g.
+ *
+ * Usage: ScalingBenchmarks [--sizes 80x120,1000x1000,...]
+ *                          [--densities 0.05,0.2,...] [--threads 1,4,...]
+ *                          [--steps n] [--warmup n] [output-file]
+ *     --sizes      the fields, as depth x width (default from 80x120
+ *                  up to 10000x10000).
+ *     --densities  the fractions of cells occupied at the start
+ *                  (default 0.05 and 0.2).
+ *     --threads    the numbers of threads (default 1 and every
+ *                  available processor).
+ *     --steps      the number of steps measured (default 20).
+ *     --warmup     the number of steps run before measuring (default 5).
+ * The results are printed and, if a file is named, also written there.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class ScalingBenchmarks
+{
+    // Fields, as depth and width, measured by default.
+    private static final int[][] DEFAULT_SIZES = { { 80, 120 }, { 500, 500 }, { 1000, 1000 },
+                                                   { 2000, 2000 }, { 5000, 5000 }, { 10000, 10000 } };
+    // Fractions of cells initially occupied by default.
+    private static final double[] DEFAULT_DENSITIES = { 0.05, 0.2 };
+    // Steps measured, and steps run before measuring, by default.
+    private static final int DEFAULT_STEPS = 20;
+    private static final int DEFAULT_WARMUP = 5;
+    // The columns of the results.
+    private static final String HEADER = "depth,width,density,threads,engine,steps,animals,"
+                                         + "cell_updates_per_s,animal_updates_per_s,"
+                                         + "p50_step_ms,p99_step_ms,peak_heap_mb,gc_count,gc_ms,status";
+
+    // The fields to measure, as depth and width.
+    private final int[][] sizes;
+    // The fractions of cells initially occupied.
+    private final double[] densities;
+    // The numbers of threads to step with.
+    private final int[] threads;
+    // The number of steps measured, and run before measuring.
+    private final int steps;
+    private final int warmup;
+
+    /**
+     * Create a benchmark of every combination of the given fields,
+     * densities and thread counts.
+     * @param sizes The fields, as depth and width.
+     * @param densities The fractions of cells initially occupied,
+     *                  each from 0 up to 1.
+     * @param threads The numbers of threads.
+     * @param steps The number of steps measured. Must be positive.
+     * @param warmup The number of steps run before measuring.
+     */
+    public ScalingBenchmarks(int[][] sizes, double[] densities, int[] threads, int steps, int warmup)
+    {
+        if(steps <= 0 || warmup < 0) {
+            throw new IllegalArgumentException("Bad steps or warmup: " + steps + ", " + warmup);
+        }
+        for(double density : densities) {
+            if(density < 0 || density >= 1) {
+                throw new IllegalArgumentException("Density must be from 0 up to 1: " + density);
+            }
+        }
+        for(int count : threads) {
+            if(count <= 0) {
+                throw new IllegalArgumentException("Bad number of threads: " + count);
+            }
+        }
+        this.sizes = sizes;
+        this.densities = densities;
+        this.threads = threads;
+        this.steps = steps;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Measure every combination, passing each result line to out as
+     * soon as it is known.
+     * @param out Receives the header and then one line per combination.
+     */
+    public void run(Consumer<String> out)
+    {
+        out.accept(HEADER);
+        for(int[] size : sizes) {
+            for(double density : densities) {
+                for(int count : threads) {
+                    out.accept(measureAlone(size[0], size[1], density, count));
+                }
+            }
+        }
+    }
+
+    /**
+     * Measure one combination on a thread of its own. A thread's
+     * neighbourhood cursors hold on to the last field it looked at until
+     * it looks at another; a fresh thread lets the whole simulation be
+     * collected before the next combination is populated, which matters
+     * for the peak heap.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @param density The fraction of cells initially occupied.
+     * @param threadCount The number of threads.
+     * @return The result line.
+     */
+    private String measureAlone(int depth, int width, double density, int threadCount)
+    {
+        String[] result = new String[1];
+        Thread thread = new Thread(() -> result[0] = measure(depth, width, density, threadCount),
+                                   "scaling-benchmark");
+        thread.start();
+        try {
+            thread.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while benchmarking", e);
+        }
+        if(result[0] == null) {
+            throw new IllegalStateException("Benchmark of " + depth + "x" + width + " failed");
+        }
+        return result[0];
+    }
+
+    /**
+     * Measure one combination.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @param density The fraction of cells initially occupied.
+     * @param threadCount The number of threads.
+     * @return The result line.
+     */
+    private String measure(int depth, int width, double density, int threadCount)
+    {
+        String engineName = threadCount == 1 ? "sequential" : "tiled";
+        String prefix = String.format(Locale.ROOT, "%d,%d,%.3f,%d,%s,%d", depth, width, density,
+                                      threadCount, engineName, steps);
+        ForkJoinPool pool = threadCount == 1 ? null : new ForkJoinPool(threadCount);
+        try {
+            // Start from a clean heap, so that the peak is this run's.
+            System.gc();
+            Simulator simulator = new Simulator(depth, width, configFor(density), null);
+            if(pool != null) {
+                simulator.setStepEngine(new TiledStepEngine(pool, TiledStepEngine.DEFAULT_TILE_SIZE));
+            }
+            simulator.simulate(warmup);
+
+            Field field = simulator.getField();
+            long[] stepNanos = new long[steps];
+            long animalUpdates = 0;
+            resetPeakHeap();
+            long[] gcBefore = gcTotals();
+            long start = System.nanoTime();
+            for(int i = 0; i < steps; i++) {
+                // Every animal alive at the start of a step is updated.
+                animalUpdates += population(field);
+                long stepStart = System.nanoTime();
+                simulator.simulateOneStep();
+                stepNanos[i] = System.nanoTime() - stepStart;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] gcAfter = gcTotals();
+            long peakHeap = peakHeap();
+
+            Arrays.sort(stepNanos);
+            return String.format(Locale.ROOT, "%s,%d,%.0f,%.0f,%.3f,%.3f,%.1f,%d,%d,ok",
+                                 prefix, population(field),
+                                 (double) depth * width * steps / seconds,
+                                 animalUpdates / seconds,
+                                 percentile(stepNanos, 0.5) / 1e6,
+                                 percentile(stepNanos, 0.99) / 1e6,
+                                 peakHeap / (1024.0 * 1024.0),
+                                 gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        }
+        catch(OutOfMemoryError e) {
+            // The simulator is unreachable again, so the next can run.
+            return prefix + ",,,,,,,,,out of memory";
+        }
+        finally {
+            if(pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Return the default configuration with every creation probability
+     * scaled so that the given fraction of cells is occupied at the
+     * start, keeping the shares of the species.
+     * @param density The fraction of cells to occupy.
+     * @return The configuration.
+     */
+    static SimulatorConfig configFor(double density)
+    {
+        SimulatorConfig base = new SimulatorConfig();
+        // The fraction occupied grows with the scale; find the scale by
+        // bisection, bounded so that no probability exceeds 1.
+        double low = 0;
+        double high = Double.MAX_VALUE;
+        for(Species species : Species.values()) {
+            double probability = base.getCreationProbability(species);
+            if(probability > 0) {
+                high = Math.min(high, 1 / probability);
+            }
+        }
+        for(int i = 0; i < 60; i++) {
+            double middle = (low + high) / 2;
+            if(occupied(base, middle) < density) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        SimulatorConfig config = base;
+        for(Species species : Species.values()) {
+            double probability = base.getCreationProbability(species);
+            if(probability > 0) {
+                config = config.withCreationProbability(species, Math.min(1, probability * low));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @param base A configuration.
+     * @param scale A factor for its creation probabilities.
+     * @return The fraction of cells occupied at the start with the
+     *         probabilities scaled.
+     */
+    private static double occupied(SimulatorConfig base, double scale)
+    {
+        double none = 1;
+        for(Species species : Species.values()) {
+            none *= 1 - Math.min(1, base.getCreationProbability(species) * scale);
+        }
+        return 1 - none;
+    }
+
+    /**
+     * @param field A field.
+     * @return The number of animals in it.
+     */
+    private static int population(Field field)
+    {
+        int total = 0;
+        for(Species species : Species.values()) {
+            total += field.getCount(species);
+        }
+        return total;
+    }
+
+    /**
+     * @param sorted Step times, in ascending order.
+     * @param fraction The percentile, as a fraction between 0 and 1.
+     * @return The step time at that percentile.
+     */
+    private static long percentile(long[] sorted, double fraction)
+    {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length))];
+    }
+
+    /**
+     * Start measuring the peak use of every heap memory pool afresh.
+     */
+    private static void resetPeakHeap()
+    {
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return The sum of the peak uses of the heap memory pools since
+     *         they were last reset, in bytes.
+     */
+    private static long peakHeap()
+    {
+        long peak = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * @return The number of collections so far and their total time in
+     *         milliseconds.
+     */
+    private static long[] gcTotals()
+    {
+        long count = 0;
+        long time = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { count, time };
+    }
+
+    /**
+     * Run the benchmark and print the results.
+     * @param args The options and optionally a file to write the
+     *             results to.
+     * @throws IOException If the results cannot be written.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int[][] sizes = DEFAULT_SIZES;
+        double[] densities = DEFAULT_DENSITIES;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] threads = processors == 1 ? new int[] { 1 } : new int[] { 1, processors };
+        int steps = DEFAULT_STEPS;
+        int warmup = DEFAULT_WARMUP;
+        String output = null;
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(arg.equals("--sizes")) {
+                String[] values = args[++i].split(",");
+                sizes = new int[values.length][];
+                for(int j = 0; j < values.length; j++) {
+                    String[] size = values[j].split("x");
+                    sizes[j] = new int[] { Integer.parseInt(size[0]), Integer.parseInt(size[1]) };
+                }
+            }
+            else if(arg.equals("--densities")) {
+                densities = Arrays.stream(args[++i].split(",")).mapToDouble(Double::parseDouble).toArray();
+            }
+            else if(arg.equals("--threads")) {
+                threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            }
+            else if(arg.equals("--steps")) {
+                steps = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("--warmup")) {
+                warmup = Integer.parseInt(args[++i]);
+            }
+            else {
+                output = arg;
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        new ScalingBenchmarks(sizes, densities, threads, steps, warmup).run(line -> {
+            System.out.println(line);
+            lines.add(line);
+        });
+        if(output != null) {
+            try(PrintWriter out = new PrintWriter(new FileWriter(output))) {
+                out.println("# ScalingBenchmarks, " + System.getProperty("java.vm.name")
+                            + " " + System.getProperty("java.version")
+                            + ", " + processors + " cpus, "
+                            + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB heap");
+                for(String line : lines) {
+                    out.println(line);
+                }
+            }
+        }
+    }
+}
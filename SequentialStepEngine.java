@@ -0,0 +1,62 @@
+import java.util.List;
+
+/**
+ * Run a step on the calling thread, letting the animals act in the
+ * order in which they appear in the roster.
+ * 
+ * Animals that die during the step, by their own act or another's,
+ * keep their places until the step is over and are then dropped in a
+ * single pass, so a step costs the same however many animals die in it.
+ * 
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class SequentialStepEngine implements StepEngine
+{
+    // Where to record how long each act takes, or null.
+    private StepMetrics metrics;
+
+    /**
+     * Let every living animal in the roster act once, in roster order.
+     * @param animals The animals in the simulation.
+     * @param field The field the animals live in.
+     * @param isDay Whether it is currently daytime.
+     * @param seed The seed of the run.
+     * @param step The number of the step being run.
+     */
+    public void step(Roster animals, Field field, boolean isDay, long seed, int step)
+    {
+        field.setStep(step);
+        // Newborns wait in the roster's nursery until the step is over.
+        List<Animal> newAnimals = animals.getNursery();
+        // Let all animals act; the young do not act until the next step.
+        for(int i = 0, count = animals.size(); i < count; i++) {
+            Animal animal = animals.get(i);
+            if(animal.isAlive()) {
+                Randomizer.begin(seed, step, animal.getId());
+                if(metrics == null) {
+                    animal.act(newAnimals, isDay);
+                }
+                else {
+                    long start = System.nanoTime();
+                    animal.act(newAnimals, isDay);
+                    metrics.recordActs(animal.getSpecies(), 1, System.nanoTime() - start);
+                }
+            }
+        }
+
+        // Add the newly born animals to the end of the roster, then drop
+        // the dead, including any young killed in the step they were born.
+        animals.admitNewborns();
+        animals.removeDead();
+    }
+
+    /**
+     * Time each act, or stop timing them.
+     * @param metrics The metrics to record in, or null to stop timing.
+     */
+    public void setMetrics(StepMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+}
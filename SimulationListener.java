@@ -0,0 +1,19 @@
+/**
+ * Something that wants to be told about the state of the field after
+ * each step of a simulation, such as a graphical view. A Simulator run
+ * without a listener is headless: it never touches the display and runs
+ * its steps back-to-back.
+ * 
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public interface SimulationListener
+{
+    /**
+     * Show the current status of the field.
+     * @param step Which iteration step it is.
+     * @param field The field whose status is to be displayed.
+     * @param isDay Whether it is currently daytime.
+     */
+    void showStatus(int step, Field field, boolean isDay);
+}
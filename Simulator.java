@@ -1,8 +1,5 @@
-import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.awt.Color;
 
 /**
  * A simple predator-prey simulator, based on a rectangular field
@@ -18,24 +15,59 @@ public class Simulator
     private static final int DEFAULT_WIDTH = 120;
     // The default depth of the grid.
     private static final int DEFAULT_DEPTH = 80;
-    // The probability that a Darkseeker will be created in any given grid position.
-    private static final double Darkseeker_CREATION_PROBABILITY = 0.09;
-    // The probability that a Human will be created in any given grid position.
-    private static final double Human_CREATION_PROBABILITY = 0.04;    
-    private static final double Dog_CREATION_PROBABILITY = 0.03;   
-    private static final double MutantDog_CREATION_PROBABILITY = 0.06;
-    private static final double Disease_CREATION_PROBABILITY = 0.005;
+    // The default probability that a Darkseeker will be created in any given
+    // grid position; the probabilities used come from the SimulatorConfig.
+    static final double Darkseeker_CREATION_PROBABILITY = 0.09;
+    // The default probability that a Human will be created in any given grid position.
+    static final double Human_CREATION_PROBABILITY = 0.04;    
+    static final double Dog_CREATION_PROBABILITY = 0.03;   
+    static final double MutantDog_CREATION_PROBABILITY = 0.06;
+    static final double Disease_CREATION_PROBABILITY = 0.005;
+    // The most random doubles populate generates for a row at a time.
+    private static final int POPULATE_BLOCK = 256;
+    // The species populate may create in a cell, in the order they are tried.
+    private static final Species[] POPULATED = { Species.DARKSEEKER, Species.HUMAN, Species.DOG,
+                                                 Species.MUTANT_DOG, Species.INFECTED_HUMAN };
+    // With lazy aging, the rosters of animals active only by day, only
+    // by night, and at all times.
+    private static final int DAY_ROSTER = 0;
+    private static final int NIGHT_ROSTER = 1;
+    private static final int ALWAYS_ROSTER = 2;
+    private static final int ROSTERS = 3;
     // List of animals in the field.
-    private List<Animal> animals;
+    private Roster animals;
     // The current state of the field.
     private Field field;
     // The current step of the simulation.
     private int step;
-    // A graphical view of the simulation.
-    private SimulatorView view;
-
-    private int stepCopy;
+    // A view of the simulation, or null when running headless.
+    private SimulationListener view;
+    // Other listeners told about every step, such as recorders.
+    private List<SimulationListener> listeners;
+    // Statistics used to decide whether the simulation is still viable.
+    private FieldStats stats;
+    // How each step is run.
+    private StepEngine engine;
+    // The seed and creation probabilities of the run.
+    private SimulatorConfig config;
+    // The seed from which every random decision of the run is derived.
+    private long seed;
+    // Whether it is daytime at the current step.
     private boolean isDay;
+    // Whether animals age lazily; see setLazyAging.
+    private boolean lazyAging;
+    // With lazy aging, the animals of each roster in the order they act,
+    // the list of animals being empty; otherwise null.
+    private Roster[] rosters;
+    // With lazy aging, the animals in the rosters by the step at which
+    // they will die of old age or hunger; otherwise null.
+    private TimingWheel<Animal> deaths;
+    // Where each step is measured, or null when not measuring.
+    private StepMetrics metrics;
+    // How fast steps run and which of them the view is shown.
+    private StepPacer pacer;
+    // Whether the view has not been shown the current step.
+    private boolean viewBehind;
 
 
     /**
@@ -47,11 +79,69 @@ public class Simulator
     }
 
     /**
-     * Create a simulation field with the given size.
+     * Construct a simulation field with default size, optionally
+     * without any graphical view.
+     * @param graphical true to show the simulation in a SimulatorView,
+     *                  false to run headless.
+     */
+    public Simulator(boolean graphical)
+    {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, graphical);
+    }
+
+    /**
+     * Create a simulation field with the given size, shown in a
+     * graphical view.
      * @param depth Depth of the field. Must be greater than zero.
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, true);
+    }
+
+    /**
+     * Create a simulation field with the given size, optionally without
+     * any graphical view.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param graphical true to show the simulation in a SimulatorView,
+     *                  false to run headless. The view is drawn on a
+     *                  thread of its own, which the steps never wait for.
+     */
+    public Simulator(int depth, int width, boolean graphical)
+    {
+        this(depth, width, graphical ? new SnapshotPublisher(
+                                           SimulatorView.withDefaultColors(valid(depth, DEFAULT_DEPTH),
+                                                                           valid(width, DEFAULT_WIDTH)))
+                                     : null);
+    }
+
+    /**
+     * Create a simulation field with the given size, reporting each
+     * step to the given listener.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param view The listener to report to, or null to run headless:
+     *             no display is used and steps run without delay.
+     *             With a view, steps run at StepPacer.DEFAULT_STEP_RATE;
+     *             see setPacer.
+     */
+    public Simulator(int depth, int width, SimulationListener view)
+    {
+        this(depth, width, new SimulatorConfig(), view);
+    }
+
+    /**
+     * Create a simulation field with the given size and configuration,
+     * reporting each step to the given listener. Simulations share no
+     * random state, so several can run at once on different threads.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param config The seed and creation probabilities of the run.
+     * @param view The listener to report to, or null to run headless.
+     */
+    public Simulator(int depth, int width, SimulatorConfig config, SimulationListener view)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
@@ -60,20 +150,46 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
 
-        animals = new ArrayList<>();
         field = new Field(depth, width);
-
-        // Create a view of the state of each location in the field.
-        view = new SimulatorView(depth, width);
-        view.setColor(Human.class, Color.GREEN);
-        view.setColor(Darkseeker.class, Color.RED);
-        view.setColor(Dog.class, Color.YELLOW); 
-        view.setColor(MutantDog.class, Color.BLACK); 
-        view.setColor(InfectedHuman.class, Color.cyan);
+        animals = new Roster(field.getAnimalPool()::release);
+        stats = new FieldStats();
+        engine = new SequentialStepEngine();
+        listeners = new ArrayList<>();
+        this.config = config;
+        seed = config.getSeed();
+        this.view = view;
+        pacer = defaultPacer(view);
 
         // Setup a valid starting point.
         reset();
     }
+
+    /**
+     * Resume a simulation from a checkpoint, aging animals lazily if they
+     * did in the run it was taken from. Running it on gives exactly the
+     * same steps as that run would have.
+     * @param checkpoint The state to resume from.
+     * @param view The listener to report to, or null to run headless.
+     */
+    public Simulator(Checkpoint checkpoint, SimulationListener view)
+    {
+        field = new Field(checkpoint.getDepth(), checkpoint.getWidth());
+        animals = new Roster(field.getAnimalPool()::release);
+        stats = new FieldStats();
+        engine = new SequentialStepEngine();
+        listeners = new ArrayList<>();
+        config = checkpoint.getConfig();
+        seed = config.getSeed();
+        this.view = view;
+        pacer = defaultPacer(view);
+        step = checkpoint.getStep();
+        isDay = checkpoint.isDay();
+        field.setStep(step);
+        checkpoint.restore(field, animals);
+        setLazyAging(checkpoint.isLazyAging());
+
+        showStatus();
+    }
     
 
     /**
@@ -92,22 +208,57 @@ public class Simulator
      */
     public void simulate(int numSteps)
     {
-        for(int step = 1; step <= numSteps && view.isViable(field); step++) {
-            stepCopy = step;
-            stepCopy = stepCopy%24;
-            if(stepCopy<=12)
-            {
-                isDay=true;
-            }
-            else
-            {
-                isDay=false;
-            }
+        pacer.restart();
+        for(int step = 1; step <= numSteps && isViable(); step++) {
+            pacer.awaitNextStep();
             simulateOneStep();
-             delay(200);   // uncomment this to run more slowly
+        }
+        // The view is left showing where the run stopped.
+        if(viewBehind) {
+            view.showStatus(step, field, isDay);
+            viewBehind = false;
         }
     }
 
+    /**
+     * Choose how fast simulate runs steps and which of them the view is
+     * shown, e.g. StepPacer.unlimited() for a throughput run with a
+     * view, or StepPacer.adaptive to run at full speed while the view
+     * keeps to a frame rate. By default steps run at
+     * StepPacer.DEFAULT_STEP_RATE with a view and unlimited without.
+     * @param pacer The pacer.
+     */
+    public void setPacer(StepPacer pacer)
+    {
+        this.pacer = pacer;
+    }
+
+    /**
+     * @return The pacer of simulate.
+     */
+    public StepPacer getPacer()
+    {
+        return pacer;
+    }
+
+    /**
+     * @param view The view of a simulator, or null.
+     * @return The pacer it starts with.
+     */
+    private static StepPacer defaultPacer(SimulationListener view)
+    {
+        return view == null ? StepPacer.unlimited() : StepPacer.fixedRate(StepPacer.DEFAULT_STEP_RATE);
+    }
+
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        return stats.isViable(field);
+    }
+
     /**
      * Run the simulation from its current state for a single step.
      * Iterate over the whole field updating the state of each
@@ -116,22 +267,277 @@ public class Simulator
     public void simulateOneStep()
     {
         step++;
-        stepCopy++;
-        // Provide space for newborn animals.
-        List<Animal> newAnimals = new ArrayList<>();        
-        // Let all Humans act.
-        for(Iterator<Animal> it = animals.iterator(); it.hasNext(); ) {
-            Animal animal = it.next();
-            animal.act(newAnimals, isDay);
-            if(! animal.isAlive()) {
-                it.remove();
+        isDay = isDay(step);
+        if(metrics != null) {
+            metrics.beginStep(field);
+        }
+        if(lazyAging) {
+            field.setStep(step);
+            // Those whose time has come die first, active or not.
+            deaths.advance(step, this::reap);
+            endPhase(StepMetrics.Phase.REAP);
+            stepRoster(isDay ? DAY_ROSTER : NIGHT_ROSTER);
+            stepRoster(ALWAYS_ROSTER);
+        }
+        else {
+            endPhase(StepMetrics.Phase.REAP);
+            // Let all animals act, adding any newborns to the list.
+            engine.step(animals, field, isDay, seed, step);
+        }
+        endPhase(StepMetrics.Phase.ACT);
+        field.releaseEmptyChunks();
+        endPhase(StepMetrics.Phase.RELEASE);
+
+        showStatus();
+        endPhase(StepMetrics.Phase.SHOW_STATUS);
+        if(metrics != null) {
+            metrics.endStep(step, field);
+        }
+    }
+
+    /**
+     * Record that a phase of the step has finished, if measuring.
+     * @param phase The phase.
+     */
+    private void endPhase(StepMetrics.Phase phase)
+    {
+        if(metrics != null) {
+            metrics.endPhase(phase);
+        }
+    }
+
+    /**
+     * Measure every step from now on, e.g. to watch the simulation over
+     * JMX after registering the metrics, or stop measuring. The step
+     * engine times the animals' acts in the same metrics.
+     * @param metrics The metrics to record in, or null to stop measuring.
+     */
+    public void setMetrics(StepMetrics metrics)
+    {
+        this.metrics = metrics;
+        engine.setMetrics(metrics);
+    }
+
+    /**
+     * Add a listener to be told about the field after every step, as
+     * well as the view. Unlike a view, a listener does not slow the
+     * simulation down. It is first told at the next step or reset.
+     * @param listener The listener to add.
+     */
+    public void addListener(SimulationListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about the field.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(SimulationListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tell every listener about the current state, and the view if the
+     * pacer says it should be shown.
+     */
+    private void showStatus()
+    {
+        if(view != null) {
+            viewBehind = !pacer.shouldShow();
+            if(!viewBehind) {
+                view.showStatus(step, field, isDay);
             }
         }
+        for(SimulationListener listener : listeners) {
+            listener.showStatus(step, field, isDay);
+        }
+    }
 
-        // Add the newly born Darkseekeres and Humans to the main lists.
-        animals.addAll(newAnimals);
+    /**
+     * Capture the current state of the simulation, so that it can be
+     * written to a file and resumed later. Only capturing happens on the
+     * calling thread; the checkpoint can then be written in the
+     * background with writeAsync while the simulation carries on.
+     * @return The state of the simulation.
+     */
+    public Checkpoint checkpoint()
+    {
+        // The engine takes the animals back at the next step.
+        engine.handBack(animals, field);
+        List<Animal> listed = animals;
+        if(lazyAging) {
+            listed = new ArrayList<>();
+            for(Roster roster : rosters) {
+                listed.addAll(roster);
+            }
+        }
+        return Checkpoint.capture(field, listed, step, isDay, lazyAging, config);
+    }
 
-        view.showStatus(step, field, isDay);
+    /**
+     * Choose how each step is run, e.g. a TiledStepEngine to use several
+     * threads or a PopulationStepEngine to keep a very large population
+     * in less memory. The default is a SequentialStepEngine. Any animals
+     * the engine replaced keeps are handed back first.
+     * @param engine The engine to run each step with.
+     * @throws IllegalStateException If animals age lazily and the engine
+     *                               keeps the animals itself.
+     */
+    public void setStepEngine(StepEngine engine)
+    {
+        if(lazyAging && engine.keepsAnimals()) {
+            throw new IllegalStateException("A " + engine.getClass().getSimpleName()
+                                            + " cannot be used with lazy aging");
+        }
+        if(this.engine != null) {
+            this.engine.setMetrics(null);
+            this.engine.handBack(animals, field);
+        }
+        this.engine = engine;
+        engine.setMetrics(metrics);
+    }
+
+    /**
+     * Choose whether animals age lazily. Normally every animal acts at
+     * every step, if only to find that it is too old or too hungry to
+     * live, even at the times of day when it does nothing else. With
+     * lazy aging, the step at which each animal will die of old age or
+     * hunger is kept on a TimingWheel and it is killed when that step
+     * comes, so at each step only the species active at that time of
+     * day act and the others cost nothing.
+     * 
+     * The animals act in a different order, those active only by day or
+     * only by night before those active at all times, and animals dying
+     * of old age or hunger do so before any animal acts, so results are
+     * valid but not identical to those without lazy aging. The mode can
+     * be changed between steps, but not while the step engine keeps the
+     * animals itself.
+     * @param lazy true to age lazily.
+     * @throws IllegalStateException If the step engine keeps the animals
+     *                               itself.
+     */
+    public void setLazyAging(boolean lazy)
+    {
+        if(lazy == lazyAging) {
+            return;
+        }
+        if(lazy && engine.keepsAnimals()) {
+            throw new IllegalStateException("A " + engine.getClass().getSimpleName()
+                                            + " cannot be used with lazy aging");
+        }
+        lazyAging = lazy;
+        if(lazy) {
+            rosters = new Roster[ROSTERS];
+            for(int roster = 0; roster < ROSTERS; roster++) {
+                rosters[roster] = new Roster(this::leaveRoster);
+            }
+            deaths = new TimingWheel<>(step);
+            adopt();
+        }
+        else {
+            for(Roster roster : rosters) {
+                for(Animal animal : roster) {
+                    if(animal.isAlive()) {
+                        animals.add(animal);
+                    }
+                }
+            }
+            rosters = null;
+            deaths = null;
+        }
+    }
+
+    /**
+     * @return true if animals age lazily.
+     */
+    public boolean isLazyAging()
+    {
+        return lazyAging;
+    }
+
+    /**
+     * Move the living animals in the list of animals to their rosters
+     * and schedule their deaths, leaving the list empty.
+     */
+    private void adopt()
+    {
+        for(Animal animal : animals) {
+            if(animal.isAlive()) {
+                Species species = animal.getSpecies();
+                int roster = !species.isActive(true) ? NIGHT_ROSTER
+                             : species.isActive(false) ? ALWAYS_ROSTER : DAY_ROSTER;
+                rosters[roster].add(animal);
+                deaths.schedule(animal, animal.getDeathStep());
+            }
+        }
+        animals.clear();
+    }
+
+    /**
+     * Let the animals of a roster act, and schedule the deaths of
+     * those born. Animals only give birth to their own species, so the
+     * young join their parents' roster.
+     * @param roster The roster.
+     */
+    private void stepRoster(int roster)
+    {
+        Roster members = rosters[roster];
+        engine.step(members, field, isDay, seed, step);
+        for(Animal animal : members) {
+            if(animal.isAlive() && animal.getAge() == 0) {
+                deaths.schedule(animal, animal.getDeathStep());
+            }
+        }
+    }
+
+    /**
+     * Let go of a dead animal dropped from its roster. Young killed in
+     * the step they were born are dropped in that step, before the
+     * births are scheduled, so only the roster ever held them and they
+     * are kept for reuse at once.
+     * @param animal The animal.
+     */
+    private void leaveRoster(Animal animal)
+    {
+        if(animal.getBirthStep() == step) {
+            field.getAnimalPool().release(animal);
+        }
+        else {
+            letGo(animal);
+        }
+    }
+
+    /**
+     * Kill an animal whose scheduled death has come if it is still due,
+     * or schedule it again if it has eaten since.
+     * @param animal The animal.
+     */
+    private void reap(Animal animal)
+    {
+        if(animal.isAlive()) {
+            animal.checkLifespan();
+            if(animal.isAlive()) {
+                deaths.schedule(animal, animal.getDeathStep());
+                return;
+            }
+        }
+        letGo(animal);
+    }
+
+    /**
+     * Let go of a dead animal, either from its roster or from the
+     * schedule of deaths, which with lazy aging both hold every animal
+     * that lives past the step it was born. Once both have, it is kept
+     * for reuse.
+     * @param animal The animal.
+     */
+    private void letGo(Animal animal)
+    {
+        if(animal.letGo()) {
+            field.getAnimalPool().release(animal);
+        }
     }
 
     /**
@@ -140,68 +546,195 @@ public class Simulator
     public void reset()
     {
         step = 0;
+        isDay = isDay(step);
+        field.setStep(step);
+        engine.discardAnimals();
         animals.clear();
+        if(lazyAging) {
+            for(Roster roster : rosters) {
+                roster.clear();
+            }
+            deaths.clear(step);
+        }
         populate();
+        if(lazyAging) {
+            adopt();
+        }
 
         // Show the starting state in the view.
-        view.showStatus(step, field, isDay);
+        pacer.restart();
+        showStatus();
     }
 
     /**
      * Randomly populate the field with Darkseekeres and Humans.
+     * Each row draws from its own stream. Rather than drawing for every
+     * cell, populate draws the number of empty cells before the next
+     * animal from the geometric distribution, and then the animal's
+     * species, so the work is in proportion to the animals created
+     * rather than to the area of the field. Each cell still gets each
+     * species with the same probability as when the species are tried
+     * in turn for every cell. The draws that place a row's animals come
+     * from a stream of their own, generated a block at a time, the block
+     * sized to the number a row is expected to need; the animals' random
+     * ages are drawn from the thread's stream, keyed apart from it.
      */
     private void populate()
     {
-        Random rand = Randomizer.getRandom();
         field.clear();
+        // The chance that a cell gets each species, and that it gets none.
+        double[] chances = new double[POPULATED.length];
+        double none = 1;
+        int last = 0;
+        for(int kind = 0; kind < POPULATED.length; kind++) {
+            double probability = config.getCreationProbability(POPULATED[kind]);
+            chances[kind] = none * probability;
+            none *= 1 - probability;
+            if(chances[kind] > 0) {
+                last = kind;
+            }
+        }
+        double any = 1 - none;
+        if(any <= 0) {
+            return;
+        }
+        double logNone = Math.log(none);
+        int width = field.getWidth();
+        // Two draws for each animal and one for the gap after the last.
+        Draws draws = new Draws((int) Math.min(POPULATE_BLOCK, Math.ceil(2 * any * width) + 1));
         for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                if(rand.nextDouble() <= Darkseeker_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Darkseeker darkseeker = new 
-                    Darkseeker(true, field, location);
-                    animals.add(darkseeker);
-                }
-                else if(rand.nextDouble() <= Human_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Human Human = new Human(true, field, location);
-                    animals.add(Human);
-                } else if(rand.nextDouble() <= Dog_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Dog dog = new Dog(true, field, location);
-                    animals.add(dog);
-                } else if(rand.nextDouble() <= MutantDog_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    MutantDog mutantDog = new MutantDog(true, field, location);
-                    animals.add(mutantDog);
-                    // else leave the location empty.
-                } else if(rand.nextDouble()<= Disease_CREATION_PROBABILITY)
-                {
-                    Location location = new Location(row, col);
-                    InfectedHuman infectedHuman = new InfectedHuman(true, field, location);
-                    animals.add(infectedHuman); 
+            draws.begin(RandomStream.key(seed, 0, row));
+            Randomizer.begin(seed, 0, ~row);
+            for(int col = gap(draws.next(), logNone, width); col < width;
+                col += 1 + gap(draws.next(), logNone, width)) {
+                double pick = draws.next() * any;
+                int kind = 0;
+                while(kind < last && pick >= chances[kind]) {
+                    pick -= chances[kind];
+                    kind++;
                 }
+                animals.add(POPULATED[kind].create(field, Location.pack(row, col), true));
             }
         }
     }
 
     /**
-     * Pause for a given time.
-     * @param millisec  The time to pause for, in milliseconds
+     * Draw the number of empty cells before the next animal populate
+     * creates.
+     * @param draw A random double in [0, 1).
+     * @param logNone The log of the chance that a cell is left empty.
+     * @param limit The most cells worth skipping.
+     * @return The number of empty cells, at most limit.
      */
-    private void delay(int millisec)
+    private static int gap(double draw, double logNone, int limit)
     {
-        try {
-            Thread.sleep(millisec);
+        double gap = Math.floor(Math.log(1 - draw) / logNone);
+        return gap < limit ? (int) gap : limit;
+    }
+
+    /**
+     * The random doubles of a keyed stream, generated a block at a time
+     * and handed out one at a time in the order nextDouble would return
+     * them.
+     */
+    private static class Draws
+    {
+        // The stream the blocks are drawn from.
+        private final RandomStream stream;
+        // The current block and the index of the next double in it.
+        private final double[] block;
+        private int next;
+
+        /**
+         * @param size The number of doubles generated at a time.
+         */
+        Draws(int size)
+        {
+            stream = new RandomStream(0);
+            block = new double[Math.max(1, size)];
         }
-        catch (InterruptedException ie) {
-            // wake up
+
+        /**
+         * Start handing out the doubles of the stream with a key.
+         * @param key The key determining the stream.
+         */
+        void begin(long key)
+        {
+            stream.reset(key);
+            stream.nextDoubles(block);
+            next = 0;
         }
 
+        /**
+         * @return The next random double in [0, 1).
+         */
+        double next()
+        {
+            if(next == block.length) {
+                stream.nextDoubles(block);
+                next = 0;
+            }
+            return block[next++];
+        }
     }
-    
+
     private boolean getIsDay()
     {
         return isDay;
     }
+
+    /**
+     * Whether a step falls in the day: the first thirteen steps of
+     * every twenty-four.
+     * @param step The step number.
+     * @return true if it is daytime at that step.
+     */
+    private static boolean isDay(int step)
+    {
+        return step % 24 <= 12;
+    }
+
+    /**
+     * @return The configuration of the run.
+     */
+    public SimulatorConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * Get details of what is in the field.
+     * @return A string describing what is in the field.
+     */
+    public String getPopulationDetails()
+    {
+        return stats.getPopulationDetails(field);
+    }
+
+    /**
+     * @return The current step of the simulation.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The field being simulated.
+     */
+    public Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * Return the given dimension, or the default if it is not positive.
+     * @param size The requested dimension.
+     * @param defaultSize The value to use instead of a bad dimension.
+     * @return A usable dimension.
+     */
+    private static int valid(int size, int defaultSize)
+    {
+        return size > 0 ? size : defaultSize;
+    }
 }
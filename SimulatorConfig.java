@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+/**
+ * The settings of one simulation run: the seed every random decision is
+ * derived from and the probability of each species being created in a
+ * grid position when the field is populated. A configuration is
+ * immutable; the with methods return a changed copy, so one
+ * configuration can be shared by several simulations running at once.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class SimulatorConfig
+{
+    // The seed from which every random decision of the run is derived.
+    private final long seed;
+    // The creation probability of each species, indexed by species code.
+    private final double[] creationProbabilities;
+
+    /**
+     * Create the default configuration: the default seed and the
+     * creation probabilities in Simulator.
+     */
+    public SimulatorConfig()
+    {
+        seed = Randomizer.getSeed();
+        creationProbabilities = new double[Species.codeCount()];
+        creationProbabilities[Species.DARKSEEKER.getCode()] = Simulator.Darkseeker_CREATION_PROBABILITY;
+        creationProbabilities[Species.HUMAN.getCode()] = Simulator.Human_CREATION_PROBABILITY;
+        creationProbabilities[Species.DOG.getCode()] = Simulator.Dog_CREATION_PROBABILITY;
+        creationProbabilities[Species.MUTANT_DOG.getCode()] = Simulator.MutantDog_CREATION_PROBABILITY;
+        creationProbabilities[Species.INFECTED_HUMAN.getCode()] = Simulator.Disease_CREATION_PROBABILITY;
+    }
+
+    /**
+     * Create a configuration with the given settings.
+     * @param seed The seed of the run.
+     * @param creationProbabilities The probability for each species code.
+     */
+    private SimulatorConfig(long seed, double[] creationProbabilities)
+    {
+        this.seed = seed;
+        this.creationProbabilities = creationProbabilities;
+    }
+
+    /**
+     * @return The seed from which every random decision is derived.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Return the probability that an animal of a species is created in
+     * any given grid position.
+     * @param species The species.
+     * @return The probability, between 0 and 1.
+     */
+    public double getCreationProbability(Species species)
+    {
+        return creationProbabilities[species.getCode()];
+    }
+
+    /**
+     * @param seed The seed of the run.
+     * @return A copy of this configuration with the given seed.
+     */
+    public SimulatorConfig withSeed(long seed)
+    {
+        return new SimulatorConfig(seed, creationProbabilities);
+    }
+
+    /**
+     * Return a copy of this configuration with a different creation
+     * probability for one species.
+     * @param species The species.
+     * @param probability The probability, between 0 and 1.
+     * @return The changed copy.
+     */
+    public SimulatorConfig withCreationProbability(Species species, double probability)
+    {
+        if(probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Probability out of range: " + probability);
+        }
+        double[] probabilities = Arrays.copyOf(creationProbabilities, creationProbabilities.length);
+        probabilities[species.getCode()] = probability;
+        return new SimulatorConfig(seed, probabilities);
+    }
+
+    /**
+     * @return A description of the settings.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder("seed=").append(seed);
+        for(Species species : Species.values()) {
+            if(species != Species.OTHER) {
+                buffer.append(' ').append(species.getName()).append('=')
+                      .append(getCreationProbability(species));
+            }
+        }
+        return buffer.toString();
+    }
+}
@@ -1,10 +1,241 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.management.JMException;
+
+/**
+ * Start a simulation from the command line.
+ * 
+ * Usage: SimulatorLauncher [--headless] [--parallel | --batched | --store]
+ *                          [--lazy] [--jmx] [--pace pace] [--resume file] [--checkpoint file]
+ *                          [--record file] [--log file] [steps]
+ *     --headless    run without a window and without pausing between
+ *                   steps, printing the final population instead.
+ *     --parallel    run each step on all cores with a TiledStepEngine.
+ *     --batched     run each step one species at a time with a
+ *                   SpeciesBatchedStepEngine.
+ *     --store       keep the animals in a PopulationStore and run each
+ *                   step with a PopulationStepEngine, for populations
+ *                   too large to keep as objects. It cannot be used
+ *                   with lazy aging.
+ *     --lazy        age animals lazily, so that animals only act at the
+ *                   times of day when they are active. A resumed run
+ *                   ages lazily anyway if its checkpoint's run did.
+ *     --jmx         measure every step and publish the StepMetrics over
+ *                   JMX, as Simulation:name="main".
+ *     --pace        how fast to step: "unlimited", a number of steps
+ *                   per second, or "adaptive" (optionally
+ *                   "adaptive:fps") to step at full speed while the
+ *                   window is drawn at a frame rate. The default is
+ *                   5 steps a second with a window, unlimited without.
+ *     --resume      carry on from a checkpoint file instead of a new
+ *                   field.
+ *     --checkpoint  write a compressed checkpoint to the file every
+ *                   500 steps and at the end, in the background.
+ *     --record      record every step's populations, births and deaths
+ *                   to the file: CSV if its name ends in .csv, otherwise
+ *                   the recorder's binary format.
+ *     --log         log every birth, death and move to the file, so the
+ *                   run can be replayed with an EventLogReplayer.
+ *     steps         the number of steps to run (default 4000).
+ */
 public class SimulatorLauncher {
 
+    // The number of steps run when none is given.
+    private static final int DEFAULT_STEPS = 4000;
+    // The number of steps between checkpoints.
+    private static final int CHECKPOINT_INTERVAL = 500;
+    // The options that are followed by a value.
+    private static final List<String> VALUE_OPTIONS = Arrays.asList("--pace", "--resume", "--checkpoint",
+                                                                    "--record", "--log");
+    // The summary of the arguments printed when they are not understood.
+    private static final String USAGE =
+        "Usage: SimulatorLauncher [--headless] [--parallel | --batched | --store]\n"
+        + "                         [--lazy] [--jmx] [--pace pace] [--resume file]\n"
+        + "                         [--checkpoint file] [--record file] [--log file] [steps]";
+
     private SimulatorLauncher() {
     }
 
-    public static void main(String[] args) {
-        Simulator simulator = new Simulator();
-        simulator.runLongSimulation();
+    public static void main(String[] args) throws IOException {
+        boolean headless = false;
+        boolean parallel = false;
+        boolean batched = false;
+        boolean store = false;
+        boolean lazy = false;
+        boolean jmx = false;
+        StepPacer pacer = null;
+        Path resume = null;
+        Path checkpoint = null;
+        Path record = null;
+        Path log = null;
+        int steps = DEFAULT_STEPS;
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(VALUE_OPTIONS.contains(arg) && i + 1 == args.length) {
+                usage(arg + " needs a value");
+                return;
+            }
+            if(arg.equals("--headless")) {
+                headless = true;
+            }
+            else if(arg.equals("--parallel")) {
+                parallel = true;
+            }
+            else if(arg.equals("--batched")) {
+                batched = true;
+            }
+            else if(arg.equals("--store")) {
+                store = true;
+            }
+            else if(arg.equals("--lazy")) {
+                lazy = true;
+            }
+            else if(arg.equals("--jmx")) {
+                jmx = true;
+            }
+            else if(arg.equals("--pace")) {
+                try {
+                    pacer = StepPacer.parse(args[++i]);
+                }
+                catch(IllegalArgumentException e) {
+                    usage(e.getMessage());
+                    return;
+                }
+            }
+            else if(arg.equals("--resume")) {
+                resume = Paths.get(args[++i]);
+            }
+            else if(arg.equals("--checkpoint")) {
+                checkpoint = Paths.get(args[++i]);
+            }
+            else if(arg.equals("--record")) {
+                record = Paths.get(args[++i]);
+            }
+            else if(arg.equals("--log")) {
+                log = Paths.get(args[++i]);
+            }
+            else if(arg.startsWith("--")) {
+                usage("Unknown option: " + arg);
+                return;
+            }
+            else {
+                try {
+                    steps = Integer.parseInt(arg);
+                }
+                catch(NumberFormatException e) {
+                    steps = -1;
+                }
+                if(steps < 0) {
+                    usage("Not a number of steps: " + arg);
+                    return;
+                }
+            }
+        }
+        if((parallel ? 1 : 0) + (batched ? 1 : 0) + (store ? 1 : 0) > 1) {
+            usage("Only one of --parallel, --batched and --store can be used");
+            return;
+        }
+        if(store && lazy) {
+            usage("--store cannot be used with --lazy");
+            return;
+        }
+
+        Simulator simulator;
+        if(resume != null) {
+            SimulationListener view = null;
+            Checkpoint start = Checkpoint.read(resume);
+            if(!headless && !SimulatorView.canShow(start.getDepth(), start.getWidth())) {
+                usage("The field of " + resume + " is too large to show; resume it --headless");
+                return;
+            }
+            if(store && start.isLazyAging()) {
+                usage("--store cannot be used to resume " + resume + ", whose run aged lazily");
+                return;
+            }
+            if(!headless) {
+                view = new SnapshotPublisher(SimulatorView.withDefaultColors(start.getDepth(),
+                                                                             start.getWidth()));
+            }
+            simulator = new Simulator(start, view);
+        }
+        else {
+            simulator = new Simulator(!headless);
+        }
+        if(parallel) {
+            simulator.setStepEngine(new TiledStepEngine());
+        }
+        else if(batched) {
+            simulator.setStepEngine(new SpeciesBatchedStepEngine());
+        }
+        else if(store) {
+            simulator.setStepEngine(new PopulationStepEngine());
+        }
+        if(lazy) {
+            simulator.setLazyAging(true);
+        }
+        if(pacer != null) {
+            simulator.setPacer(pacer);
+        }
+        if(jmx) {
+            StepMetrics metrics = new StepMetrics();
+            try {
+                metrics.register("main");
+            }
+            catch(JMException e) {
+                System.err.println("Could not publish the step metrics: " + e);
+            }
+            simulator.setMetrics(metrics);
+        }
+        TimeSeriesRecorder recorder = null;
+        if(record != null) {
+            boolean csv = record.getFileName().toString().endsWith(".csv");
+            recorder = new TimeSeriesRecorder(record, csv ? TimeSeriesRecorder.Format.CSV
+                                                          : TimeSeriesRecorder.Format.BINARY);
+            simulator.addListener(recorder);
+        }
+        EventLog eventLog = null;
+        if(log != null) {
+            eventLog = new EventLog(log);
+            simulator.addListener(eventLog);
+        }
+
+        if(checkpoint == null) {
+            simulator.simulate(steps);
+        }
+        else {
+            CompletableFuture<Path> written = null;
+            for(int remaining = steps; remaining > 0 && simulator.isViable(); remaining -= CHECKPOINT_INTERVAL) {
+                simulator.simulate(Math.min(remaining, CHECKPOINT_INTERVAL));
+                written = simulator.checkpoint().writeAsync(checkpoint, true);
+            }
+            // Wait for the last checkpoint before the JVM can exit.
+            if(written != null) {
+                written.join();
+            }
+        }
+        if(recorder != null) {
+            recorder.close();
+        }
+        if(eventLog != null) {
+            eventLog.close();
+        }
+        if(headless) {
+            System.out.println("Step " + simulator.getStep() + ": "
+                               + simulator.getPopulationDetails());
+        }
+    }
+
+    /**
+     * Print what was wrong with the arguments and how to use the
+     * launcher.
+     * @param problem What was wrong.
+     */
+    private static void usage(String problem) {
+        System.out.println(problem);
+        System.out.println(USAGE);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,9 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * A graphical view of the simulation grid.
@@ -11,11 +12,21 @@ import java.util.Map;
  * Colors for each type of species can be defined using the
  * setColor method.
  * 
+ * The view is shown snapshots of the field by a SnapshotPublisher, on the
+ * publisher's thread rather than the simulation's. The field is drawn
+ * one pixel per cell into an image whose pixels are written directly,
+ * and after the first frame only the cells a snapshot lists as changed
+ * are redrawn. A field of more than MAX_CELLS cells is not shown.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
-public class SimulatorView extends JFrame
+public class SimulatorView extends JFrame implements SnapshotListener
 {
+    // The most cells of a field that can be shown: the image of the
+    // field takes four bytes a cell.
+    public static final int MAX_CELLS = 1 << 24;
+
     // Colors used for empty locations.
     private static final Color EMPTY_COLOR = Color.white;
 
@@ -28,8 +39,6 @@ public class SimulatorView extends JFrame
     private JLabel stepLabel, population;
     private FieldView fieldView;
     
-    // A map for storing colors for participants in the simulation
-    private Map<Class, Color> colors;
     // A statistics object computing and storing simulation information
     private FieldStats stats;
 
@@ -37,11 +46,16 @@ public class SimulatorView extends JFrame
      * Create a view of the given width and height.
      * @param height The simulation's height.
      * @param width  The simulation's width.
+     * @throws IllegalArgumentException If the field has more than
+     *                                  MAX_CELLS cells.
      */
     public SimulatorView(int height, int width)
     {
+        if(!canShow(height, width)) {
+            throw new IllegalArgumentException("A field of " + height + " by " + width
+                                               + " is too large to show");
+        }
         stats = new FieldStats();
-        colors = new LinkedHashMap<>();
 
         setTitle("Fox and Rabbit Simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
@@ -59,6 +73,34 @@ public class SimulatorView extends JFrame
         setVisible(true);
     }
     
+    /**
+     * Tell whether a field is small enough to be shown.
+     * @param height The simulation's height.
+     * @param width  The simulation's width.
+     * @return true if it has no more than MAX_CELLS cells.
+     */
+    public static boolean canShow(int height, int width)
+    {
+        return (long) height * width <= MAX_CELLS;
+    }
+
+    /**
+     * Create a view with the colors used by the simulation's species.
+     * @param height The simulation's height.
+     * @param width  The simulation's width.
+     * @return The new view.
+     */
+    public static SimulatorView withDefaultColors(int height, int width)
+    {
+        SimulatorView view = new SimulatorView(height, width);
+        view.setColor(Human.class, Color.GREEN);
+        view.setColor(Darkseeker.class, Color.RED);
+        view.setColor(Dog.class, Color.YELLOW); 
+        view.setColor(MutantDog.class, Color.BLACK); 
+        view.setColor(InfectedHuman.class, Color.cyan);
+        return view;
+    }
+    
     /**
      * Define a color to be used for a given class of animal.
      * @param animalClass The animal's Class object.
@@ -66,63 +108,38 @@ public class SimulatorView extends JFrame
      */
     public void setColor(Class animalClass, Color color)
     {
-        colors.put(animalClass, color);
+        setColor(Species.ofType(animalClass), color);
     }
 
     /**
-     * @return The color to be used for a given class of animal.
+     * Define a color to be used for a given species.
+     * @param species The species.
+     * @param color The color to be used for the given species.
      */
-    private Color getColor(Class animalClass)
+    public void setColor(Species species, Color color)
     {
-        Color col = colors.get(animalClass);
-        if(col == null) {
-            // no color defined for this class
-            return UNKNOWN_COLOR;
-        }
-        else {
-            return col;
-        }
+        fieldView.setRGB(species.getCode(), color.getRGB());
     }
 
     /**
-     * Show the current status of the field.
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
+     * Show the state of the field in a snapshot. This is called on the
+     * publisher's thread; the labels are updated on the Swing thread.
+     * @param snapshot The state of the field.
      */
-    public void showStatus(int step, Field field, boolean isDay)
+    @Override
+    public void showSnapshot(FieldSnapshot snapshot)
     {
-        if(!isVisible()) {
-            setVisible(true);
-        }
-            
-        stepLabel.setText(STEP_PREFIX + step);
-        stats.reset();
-        
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-                    fieldView.drawMark(col, row, getColor(animal.getClass()));
-                }
-                else {
-                    if(animal ==null &&isDay)
-                    {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);}
-                    else
-                    if(animal == null &&!isDay)
-                    {
-                         fieldView.drawMark(col, row, NIGHT_COLOR);
-                    }
-                }
+        fieldView.drawSnapshot(snapshot);
+        String stepText = STEP_PREFIX + snapshot.getStep();
+        String populationText = POPULATION_PREFIX + stats.getPopulationDetails(snapshot);
+        SwingUtilities.invokeLater(() -> {
+            if(!isVisible()) {
+                setVisible(true);
             }
-        }
-        stats.countFinished();
-
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+            stepLabel.setText(stepText);
+            population.setText(populationText);
+            fieldView.repaint();
+        });
     }
 
     /**
@@ -147,10 +164,18 @@ public class SimulatorView extends JFrame
         private final int GRID_VIEW_SCALING_FACTOR = 6;
 
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The field, one pixel per cell, and its pixels. Both are
+        // guarded by the image's lock.
+        private final BufferedImage fieldImage;
+        private final int[] pixels;
+        // The species code of each cell as last drawn.
+        private final byte[] drawn;
+        // The RGB value for each species code.
+        private final int[] speciesRGB;
+        // The RGB value of empty cells as last drawn.
+        private int background;
+        // Whether the image matches drawn; if not, every cell is redrawn.
+        private boolean imageValid;
 
         /**
          * Create a new FieldView component.
@@ -159,7 +184,11 @@ public class SimulatorView extends JFrame
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+            drawn = new byte[height * width];
+            speciesRGB = new int[Species.codeCount()];
+            Arrays.fill(speciesRGB, UNKNOWN_COLOR.getRGB());
         }
 
         /**
@@ -172,51 +201,66 @@ public class SimulatorView extends JFrame
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Set the color of a species, redrawing every cell next time.
+         * @param code The species code.
+         * @param rgb The RGB value to draw it in.
          */
-        public void preparePaint()
+        public void setRGB(int code, int rgb)
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
-                }
+            synchronized(fieldImage) {
+                speciesRGB[code] = rgb;
+                imageValid = false;
             }
         }
-        
+
         /**
-         * Paint on grid location on this field in a given color.
+         * Bring the image up to date with a snapshot, redrawing only the
+         * cells it lists as changed unless it holds the whole field.
+         * A change between day and night or of a color means every cell
+         * is redrawn.
+         * @param snapshot The state of the field.
          */
-        public void drawMark(int x, int y, Color color)
+        public void drawSnapshot(FieldSnapshot snapshot)
         {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            int rgb = (snapshot.isDay() ? EMPTY_COLOR : NIGHT_COLOR).getRGB();
+            synchronized(fieldImage) {
+                if(rgb != background) {
+                    background = rgb;
+                    imageValid = false;
+                }
+                if(snapshot.isWhole()) {
+                    for(int index = 0; index < drawn.length; index++) {
+                        drawn[index] = (byte) snapshot.getSpeciesAt(index);
+                    }
+                    imageValid = false;
+                }
+                else {
+                    for(int change = 0; change < snapshot.getChangeCount(); change++) {
+                        int index = snapshot.getChangedCell(change);
+                        byte code = (byte) snapshot.getChangedSpecies(change);
+                        drawn[index] = code;
+                        pixels[index] = code == Species.EMPTY ? background : speciesRGB[code];
+                    }
+                }
+                if(!imageValid) {
+                    for(int index = 0; index < pixels.length; index++) {
+                        byte code = drawn[index];
+                        pixels[index] = code == Species.EMPTY ? background : speciesRGB[code];
+                    }
+                    imageValid = true;
+                }
+            }
         }
 
         /**
          * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * internal image to screen, scaled to fill the component.
          */
         public void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
-                }
+            Dimension currentSize = getSize();
+            synchronized(fieldImage) {
+                g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
             }
         }
     }
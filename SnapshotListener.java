@@ -0,0 +1,18 @@
+/**
+ * Something that is shown snapshots of the field by a SnapshotPublisher,
+ * such as a graphical view. It is called on the publisher's own thread,
+ * never on the simulation thread, and may not see every step: when it
+ * falls behind, the steps in between are skipped.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public interface SnapshotListener
+{
+    /**
+     * Show the state of the field at some step. The snapshot is reused
+     * once this returns, so it must not be kept.
+     * @param snapshot The state of the field.
+     */
+    void showSnapshot(FieldSnapshot snapshot);
+}
@@ -0,0 +1,186 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * Passes the state of the simulation to a SnapshotListener, such as a
+ * view, on a thread of its own, so the simulation never waits for
+ * drawing or statistics.
+ *
+ * After each step the simulation thread puts the cells the field
+ * reports as changed into a snapshot and publishes that as the latest
+ * one, so publishing costs in proportion to what changed. The
+ * publisher's thread shows the latest snapshot a fixed number of times
+ * a second. If a newer step is published before the last snapshot was
+ * shown, the step's changes are added to that snapshot instead, so the
+ * listener misses none. A snapshot holds the whole field instead when
+ * the field is new to the publisher, when the listener failed to show
+ * the last one, or when the changes would take more room than the
+ * cells. Only three snapshots are ever in use (one being filled, one
+ * waiting and one being shown), and they are recycled.
+ *
+ * The publisher is the one reader of the field's changes, so nothing
+ * else should drain them while it is in use.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class SnapshotPublisher implements SimulationListener
+{
+    // The number of snapshots shown per second by default.
+    public static final int DEFAULT_FRAME_RATE = 30;
+    // The bytes a changed cell takes in a snapshot, against one for a
+    // cell of a whole one; more changes than the cells over this are
+    // published as the whole field.
+    private static final int CHANGE_BYTES = 5;
+
+    // The listener shown each snapshot.
+    private final SnapshotListener listener;
+    // The thread on which the listener is called.
+    private final ScheduledExecutorService shower;
+    // The most recent snapshot that has not been shown yet, or null.
+    private final AtomicReference<FieldSnapshot> latest;
+    // Snapshots that are free to be filled again.
+    private final ConcurrentLinkedQueue<FieldSnapshot> spares;
+    // The number of steps whose snapshot was not shown on its own.
+    private final AtomicLong dropped;
+    // Whether the listener failed to show a snapshot, so that the next
+    // must hold the whole field.
+    private final AtomicBoolean failed;
+
+    // The following are only used on the simulation thread.
+    // The field being published.
+    private Field source;
+    // The snapshot being filled.
+    private FieldSnapshot target;
+    // Adds one changed cell of the source to the target.
+    private final IntConsumer changeRecorder;
+
+    /**
+     * Publish to the given listener at the default frame rate.
+     * @param listener The listener to be shown the snapshots.
+     */
+    public SnapshotPublisher(SnapshotListener listener)
+    {
+        this(listener, DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * Publish to the given listener at the given frame rate.
+     * @param listener The listener to be shown the snapshots.
+     * @param framesPerSecond The most times per second it is called.
+     */
+    public SnapshotPublisher(SnapshotListener listener, int framesPerSecond)
+    {
+        if(framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + framesPerSecond);
+        }
+        this.listener = listener;
+        latest = new AtomicReference<>();
+        spares = new ConcurrentLinkedQueue<>();
+        dropped = new AtomicLong();
+        failed = new AtomicBoolean();
+        changeRecorder = index -> {
+            int width = source.getWidth();
+            target.addChange(index, source.getSpeciesAt(index / width, index % width));
+        };
+        shower = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "SnapshotPublisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        shower.scheduleAtFixedRate(this::showLatest, 0, 1_000_000_000L / framesPerSecond,
+                                   TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publish a snapshot of the field. This never waits for the
+     * listener.
+     * @param step Which iteration step it is.
+     * @param field The field whose status is to be displayed.
+     * @param isDay Whether it is currently daytime.
+     */
+    @Override
+    public void showStatus(int step, Field field, boolean isDay)
+    {
+        // Take back the snapshot not shown yet, if any, to add to it.
+        FieldSnapshot snapshot = latest.getAndSet(null);
+        if(snapshot != null) {
+            dropped.incrementAndGet();
+        }
+        else {
+            snapshot = spares.poll();
+            if(snapshot != null) {
+                snapshot.clearChanges();
+            }
+        }
+        if(snapshot == null || snapshot.getDepth() != field.getDepth()
+                            || snapshot.getWidth() != field.getWidth()) {
+            snapshot = new FieldSnapshot(field.getDepth(), field.getWidth());
+        }
+
+        if(field != source || failed.getAndSet(false)) {
+            source = field;
+            // Every cell is copied, so the pending changes are moot.
+            field.drainChanges(index -> {});
+            snapshot.copyWhole(field);
+        }
+        else {
+            target = snapshot;
+            field.drainChanges(changeRecorder);
+            target = null;
+            if(snapshot.getChangeCount() > (long) field.getDepth() * field.getWidth() / CHANGE_BYTES) {
+                snapshot.copyWhole(field);
+            }
+        }
+        snapshot.fill(field, step, isDay);
+        latest.set(snapshot);
+    }
+
+    /**
+     * @return The number of steps whose snapshot was not shown before
+     *         the next step was added to it.
+     */
+    public long getDroppedFrames()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Stop showing snapshots. Any snapshot not yet shown is dropped.
+     */
+    public void close()
+    {
+        shower.shutdown();
+    }
+
+    /**
+     * Show the latest snapshot, if there is one that has not been shown.
+     * Runs on the publisher's thread.
+     */
+    private void showLatest()
+    {
+        FieldSnapshot snapshot = latest.getAndSet(null);
+        if(snapshot != null) {
+            try {
+                listener.showSnapshot(snapshot);
+            }
+            catch(RuntimeException e) {
+                // Keep showing later snapshots rather than stopping; the
+                // next holds the whole field, as this one's changes
+                // may not all have been shown.
+                failed.set(true);
+                System.err.println("Could not show the field at step " + snapshot.getStep()
+                                   + " in a " + listener.getClass().getName() + ": " + e);
+            }
+            finally {
+                spares.offer(snapshot);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * The kinds of participant that can occupy a cell of the field.
+ * Each kind has a small integer code which the field stores alongside
+ * every occupied cell, so species checks are an integer compare rather
+ * than a type test on the occupant. Code 0 is reserved for an empty cell.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public enum Species
+{
+    HUMAN(Human.class, "Human", true, false),
+    DARKSEEKER(Darkseeker.class, "Darkseeker", false, true),
+    DOG(Dog.class, "Dog", true, false),
+    MUTANT_DOG(MutantDog.class, "MutantDog", false, true),
+    INFECTED_HUMAN(InfectedHuman.class, "InfectedHuman", true, true),
+    // Anything placed in the field that is not one of the animals above.
+    OTHER(null, "Other", false, false);
+
+    // The code stored in the field for an empty cell.
+    public static final int EMPTY = 0;
+    // Lookup from code to species; index 0 (empty) maps to null.
+    private static final Species[] BY_CODE = buildCodeTable();
+
+    // The class of this species' animals; null for OTHER.
+    private final Class<?> type;
+    // The name shown for this species, e.g. in population counts.
+    private final String name;
+    // Whether the species' animals do anything but age by day, and by night.
+    private final boolean activeByDay, activeByNight;
+
+    /**
+     * @param type The class of the species' animals.
+     * @param name The name shown for the species.
+     * @param activeByDay Whether its animals act by day.
+     * @param activeByNight Whether its animals act by night.
+     */
+    Species(Class<?> type, String name, boolean activeByDay, boolean activeByNight)
+    {
+        this.type = type;
+        this.name = name;
+        this.activeByDay = activeByDay;
+        this.activeByNight = activeByNight;
+    }
+
+    /**
+     * @return The name shown for this species.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Test whether the species' animals do anything but age at a time
+     * of day. This must agree with their act methods, which do nothing
+     * else at the times they are not active.
+     * @param isDay Whether it is daytime.
+     * @return true if they are active then.
+     */
+    public boolean isActive(boolean isDay)
+    {
+        return isDay ? activeByDay : activeByNight;
+    }
+
+    /**
+     * Create an animal of this species, placing it in the field. This
+     * is the one place that knows each species' class, so a species
+     * added here can be populated, born, restored and benchmarked.
+     * @param field The field to place the animal in.
+     * @param location Where to place it, packed.
+     * @param randomAge If true, the animal has a random age and, if it
+     *                  eats, food level; otherwise those of a new born.
+     * @return The new animal.
+     * @throws IllegalArgumentException If this is OTHER, which has no
+     *                                  animals.
+     */
+    public Animal create(Field field, long location, boolean randomAge)
+    {
+        switch(this) {
+            case HUMAN:
+                return new Human(randomAge, field, location);
+            case DARKSEEKER:
+                return new Darkseeker(randomAge, field, location);
+            case DOG:
+                return new Dog(randomAge, field, location);
+            case MUTANT_DOG:
+                return new MutantDog(randomAge, field, location);
+            case INFECTED_HUMAN:
+                return new InfectedHuman(randomAge, field, location);
+            default:
+                throw new IllegalArgumentException("Cannot create an animal of species " + this);
+        }
+    }
+
+    /**
+     * Create an animal of this species that is not alive and is in no
+     * field, for the state of one kept in a PopulationStore to be
+     * loaded into.
+     * @return The new animal.
+     * @throws IllegalArgumentException If this is OTHER, which has no
+     *                                  animals.
+     */
+    Animal createBlank()
+    {
+        switch(this) {
+            case HUMAN:
+                return new Human();
+            case DARKSEEKER:
+                return new Darkseeker();
+            case DOG:
+                return new Dog();
+            case MUTANT_DOG:
+                return new MutantDog();
+            case INFECTED_HUMAN:
+                return new InfectedHuman();
+            default:
+                throw new IllegalArgumentException("Cannot create an animal of species " + this);
+        }
+    }
+
+    /**
+     * @return The number of species codes, including EMPTY; codes run
+     *         from 0 to this value minus one.
+     */
+    public static int codeCount()
+    {
+        return BY_CODE.length;
+    }
+
+    /**
+     * @return The code stored in the field for this species.
+     */
+    public int getCode()
+    {
+        return ordinal() + 1;
+    }
+
+    /**
+     * Return the species with the given field code.
+     * @param code A code as returned by getCode, or EMPTY.
+     * @return The species, or null for an empty cell.
+     */
+    public static Species fromCode(int code)
+    {
+        return BY_CODE[code];
+    }
+
+    /**
+     * Return the species of an object placed in the field.
+     * @param occupant The object, which must not be null.
+     * @return Its species, or OTHER if it is not an animal.
+     */
+    public static Species of(Object occupant)
+    {
+        if(occupant instanceof Animal) {
+            return ((Animal) occupant).getSpecies();
+        }
+        else {
+            return OTHER;
+        }
+    }
+
+    /**
+     * Return the species whose animals are of the given class.
+     * @param type A class of object that may be placed in the field.
+     * @return Its species, or OTHER if it is not one of the animals.
+     */
+    public static Species ofType(Class<?> type)
+    {
+        for(Species species : values()) {
+            if(species.type == type) {
+                return species;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Build the code lookup table.
+     * @return The species indexed by code.
+     */
+    private static Species[] buildCodeTable()
+    {
+        Species[] all = values();
+        Species[] table = new Species[all.length + 1];
+        for(Species species : all) {
+            table[species.getCode()] = species;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * A strategy for running one step of a simulation: letting every animal
+ * act once and bringing the roster of animals up to date.
+ * 
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public interface StepEngine
+{
+    /**
+     * Let every living animal in the roster act once. On return the
+     * roster holds the surviving animals and those born during the step,
+     * and its nursery is empty. Every animal that was dead or died,
+     * including young killed in the step they were born, is dropped
+     * with the roster's removeDead during the step, so that it is
+     * reclaimed.
+     * The field's step must be set to the step being run before any
+     * animal acts, and before each animal acts, the acting thread's
+     * random stream must be keyed with Randomizer.begin(seed, step,
+     * animal.getId()).
+     * @param animals The animals in the simulation.
+     * @param field The field the animals live in.
+     * @param isDay Whether it is currently daytime.
+     * @param seed The seed of the run.
+     * @param step The number of the step being run.
+     */
+    void step(Roster animals, Field field, boolean isDay, long seed, int step);
+
+    /**
+     * Whether the engine keeps the animals in a store of its own between
+     * steps, taking them out of the roster it is given, rather than in
+     * the roster. Such an engine runs the whole population at once, so
+     * it cannot be used with lazy aging, whose rosters each hold only
+     * some of the animals.
+     * @return true if the engine keeps the animals itself.
+     */
+    default boolean keepsAnimals()
+    {
+        return false;
+    }
+
+    /**
+     * Hand back any animals the engine keeps, adding them as objects to
+     * the end of the roster in the order they would act and placing the
+     * objects in the field, e.g. before the animals are checkpointed or
+     * the engine is replaced. Engines that keep none do nothing.
+     * @param animals The roster to add them to.
+     * @param field The field they live in.
+     */
+    default void handBack(Roster animals, Field field)
+    {
+    }
+
+    /**
+     * Forget any animals the engine keeps, e.g. because the field they
+     * lived in has been cleared. Engines that keep none do nothing.
+     */
+    default void discardAnimals()
+    {
+    }
+
+    /**
+     * Choose where to record how long the animals take to act. Engines
+     * that do not time acts ignore this.
+     * @param metrics The metrics to record in, or null to stop timing.
+     */
+    default void setMetrics(StepMetrics metrics)
+    {
+    }
+}
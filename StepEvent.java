@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one step of a simulation, committed
+ * by StepMetrics. Its duration is that of the step. Events are only
+ * recorded while a recording is running, e.g. when the JVM is started
+ * with -XX:StartFlightRecording; otherwise committing one costs next
+ * to nothing.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+@Name("simulation.Step")
+@Label("Simulation Step")
+@Category("Simulation")
+@Description("One step of a predator-prey simulation")
+class StepEvent extends Event
+{
+    @Label("Step")
+    int step;
+
+    @Label("Births")
+    long births;
+
+    @Label("Deaths")
+    long deaths;
+
+    @Label("Infections")
+    long infections;
+
+    @Label("Population")
+    int population;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,553 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measurements of where a simulation's step time goes: how long each
+ * step and each phase of a step took, how long each species' acts take,
+ * what was born and died, the population, and the bytes allocated by
+ * the stepping thread and the threads that acted for it. They can be
+ * read directly, through JMX once registered, and as StepEvents in a
+ * flight recording.
+ *
+ * A Simulator only measures while it has metrics (see
+ * Simulator.setMetrics); without them the only cost is a null check per
+ * phase, so measuring can be switched on in any run. Acts may be timed
+ * on several threads at once, and JMX clients read on threads of their
+ * own, so the act totals are adders and everything else is guarded by
+ * the metrics' lock, which is taken a few times per step.
+ *
+ * Typical use:
+ *     StepMetrics metrics = new StepMetrics();
+ *     metrics.register("main");
+ *     simulator.setMetrics(metrics);
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class StepMetrics implements StepMetricsMXBean
+{
+    /**
+     * The phases of a step, in the order they run.
+     */
+    public enum Phase
+    {
+        // Deaths from old age and hunger taken off the timing wheel.
+        REAP,
+        // Every animal acting, through the step engine.
+        ACT,
+        // Empty chunks of the field being released.
+        RELEASE,
+        // The view and listeners being told about the step.
+        SHOW_STATUS
+    }
+
+    // The number of most recent step times kept for percentiles.
+    private static final int RECENT = 1024;
+    // The number of buckets of the step latency histogram.
+    private static final int BUCKETS = 32;
+    // The number of species codes.
+    private static final int CODES = Species.codeCount();
+    // Nanoseconds per millisecond.
+    private static final double NANOS_PER_MILLI = 1e6;
+    // The domain the metrics are registered in.
+    private static final String DOMAIN = "Simulation";
+    // Source of per-thread allocation counts, or null if there is none.
+    private static final com.sun.management.ThreadMXBean allocations = allocationBean();
+
+    // The number of acts timed, and their total time, by species code.
+    private final LongAdder[] acts;
+    private final LongAdder[] actNanos;
+    // Total time spent in each phase, by ordinal.
+    private final long[] phaseNanos;
+    // The number of steps taking each power of two of microseconds.
+    private final long[] histogram;
+    // The most recent step times, as a ring.
+    private final long[] recent;
+    // The population of each species after the last step, by code.
+    private final int[] population;
+    // The number of steps measured, and their total and longest times.
+    private long steps;
+    private long totalNanos;
+    private long maxNanos;
+    // The last step measured, and its time.
+    private int lastStep;
+    private long lastNanos;
+    // Births, deaths and infections in the last step.
+    private long lastBirths, lastDeaths, lastInfections;
+    // Bytes allocated in the last step and in all steps, or -1 if unknown.
+    private long lastAllocated;
+    private long totalAllocated;
+
+    // When the current step and the current phase began.
+    private long stepStart;
+    private long phaseStart;
+    // The totals of the field's tally when the current step began.
+    private long birthsBefore, deathsBefore, infectionsBefore;
+    // The ids of the threads that have timed acts, such as a step
+    // engine's workers. Threads are rarely added, so it is replaced
+    // rather than changed, and acting threads read it without the lock.
+    private volatile long[] actingThreads;
+    // Bytes allocated so far by the stepping thread and each acting
+    // thread, by thread id, when the current step began and when it
+    // ended.
+    private final Map<Long, Long> allocatedBefore;
+    private final Map<Long, Long> allocatedAfter;
+    // Tells whether steps are being recorded; never committed.
+    private final StepEvent probe;
+    // The flight recorder event of the current step, or null if steps
+    // are not being recorded.
+    private StepEvent event;
+
+    /**
+     * Create metrics with nothing measured.
+     */
+    public StepMetrics()
+    {
+        acts = new LongAdder[CODES];
+        actNanos = new LongAdder[CODES];
+        for(int code = 0; code < CODES; code++) {
+            acts[code] = new LongAdder();
+            actNanos[code] = new LongAdder();
+        }
+        phaseNanos = new long[Phase.values().length];
+        histogram = new long[BUCKETS];
+        recent = new long[RECENT];
+        population = new int[CODES];
+        lastAllocated = -1;
+        actingThreads = new long[0];
+        allocatedBefore = new HashMap<>();
+        allocatedAfter = new HashMap<>();
+        probe = new StepEvent();
+    }
+
+    /**
+     * Register the metrics with the platform MBean server, so that JMX
+     * clients can read them.
+     * @param name The name to register them under, e.g. to tell apart
+     *             the simulations of one JVM.
+     * @return The name of the MBean.
+     * @throws JMException If they could not be registered, e.g. because
+     *                     the name is taken.
+     */
+    public ObjectName register(String name) throws JMException
+    {
+        ObjectName objectName = new ObjectName(DOMAIN, "name", ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Record that a step is beginning.
+     * @param field The field being stepped.
+     */
+    synchronized void beginStep(Field field)
+    {
+        if(probe.isEnabled()) {
+            event = new StepEvent();
+            event.begin();
+        }
+        EventTally events = field.getEvents();
+        birthsBefore = totalBirths(events);
+        deathsBefore = totalDeaths(events);
+        infectionsBefore = totalInfections(events);
+        readAllocations(allocatedBefore);
+        stepStart = System.nanoTime();
+        phaseStart = stepStart;
+    }
+
+    /**
+     * Record that a phase of the current step has finished, and that
+     * the next, if any, begins.
+     * @param phase The phase.
+     */
+    synchronized void endPhase(Phase phase)
+    {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    /**
+     * Record how long some animals of a species took to act. This may
+     * be called on several threads at once; from the next step on, the
+     * bytes each calling thread allocates are counted too.
+     * @param species The animals' species.
+     * @param count The number of animals that acted.
+     * @param nanos How long they took together, in nanoseconds.
+     */
+    void recordActs(Species species, int count, long nanos)
+    {
+        long thread = Thread.currentThread().getId();
+        if(indexOf(actingThreads, thread) < 0) {
+            addActingThread(thread);
+        }
+        acts[species.getCode()].add(count);
+        actNanos[species.getCode()].add(nanos);
+    }
+
+    /**
+     * Record that the current step has finished.
+     * @param step The number of the step.
+     * @param field The field that was stepped.
+     */
+    synchronized void endStep(int step, Field field)
+    {
+        long nanos = System.nanoTime() - stepStart;
+        long allocated = allocatedSince();
+        EventTally events = field.getEvents();
+        lastStep = step;
+        lastNanos = nanos;
+        recent[(int) (steps % RECENT)] = nanos;
+        steps++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        histogram[bucket(nanos)]++;
+        lastBirths = totalBirths(events) - birthsBefore;
+        lastDeaths = totalDeaths(events) - deathsBefore;
+        lastInfections = totalInfections(events) - infectionsBefore;
+        lastAllocated = allocated;
+        if(lastAllocated >= 0) {
+            totalAllocated += lastAllocated;
+        }
+        int total = 0;
+        for(Species species : Species.values()) {
+            population[species.getCode()] = field.getCount(species);
+            total += population[species.getCode()];
+        }
+
+        if(event != null && event.shouldCommit()) {
+            event.step = step;
+            event.births = lastBirths;
+            event.deaths = lastDeaths;
+            event.infections = lastInfections;
+            event.population = total;
+            event.allocatedBytes = lastAllocated;
+            event.commit();
+        }
+        event = null;
+    }
+
+    public synchronized long getSteps()
+    {
+        return steps;
+    }
+
+    public synchronized int getLastStep()
+    {
+        return lastStep;
+    }
+
+    public synchronized double getLastStepMillis()
+    {
+        return lastNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized double getMeanStepMillis()
+    {
+        return steps == 0 ? 0 : totalNanos / NANOS_PER_MILLI / steps;
+    }
+
+    public synchronized double getMaxStepMillis()
+    {
+        return maxNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized double getMedianStepMillis()
+    {
+        return recentPercentile(0.5);
+    }
+
+    public synchronized double getPercentile99StepMillis()
+    {
+        return recentPercentile(0.99);
+    }
+
+    public synchronized long[] getStepLatencyHistogram()
+    {
+        return histogram.clone();
+    }
+
+    public synchronized Map<String, Double> getPhaseMillis()
+    {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for(Phase phase : Phase.values()) {
+            millis.put(phase.name(), steps == 0 ? 0 : phaseNanos[phase.ordinal()] / NANOS_PER_MILLI / steps);
+        }
+        return millis;
+    }
+
+    public Map<String, Long> getActs()
+    {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for(Species species : Species.values()) {
+            long count = acts[species.getCode()].sum();
+            if(count > 0) {
+                counts.put(species.getName(), count);
+            }
+        }
+        return counts;
+    }
+
+    public Map<String, Double> getMeanActNanos()
+    {
+        Map<String, Double> nanos = new LinkedHashMap<>();
+        for(Species species : Species.values()) {
+            long count = acts[species.getCode()].sum();
+            if(count > 0) {
+                nanos.put(species.getName(), (double) actNanos[species.getCode()].sum() / count);
+            }
+        }
+        return nanos;
+    }
+
+    public synchronized long getLastStepBirths()
+    {
+        return lastBirths;
+    }
+
+    public synchronized long getLastStepDeaths()
+    {
+        return lastDeaths;
+    }
+
+    public synchronized long getLastStepInfections()
+    {
+        return lastInfections;
+    }
+
+    public synchronized int getPopulation()
+    {
+        int total = 0;
+        for(int count : population) {
+            total += count;
+        }
+        return total;
+    }
+
+    public synchronized Map<String, Integer> getPopulationBySpecies()
+    {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for(Species species : Species.values()) {
+            if(species != Species.OTHER) {
+                counts.put(species.getName(), population[species.getCode()]);
+            }
+        }
+        return counts;
+    }
+
+    public synchronized long getLastStepAllocatedBytes()
+    {
+        return lastAllocated;
+    }
+
+    public synchronized double getMeanAllocatedBytesPerStep()
+    {
+        if(allocations == null) {
+            return -1;
+        }
+        return steps == 0 ? 0 : (double) totalAllocated / steps;
+    }
+
+    public synchronized void reset()
+    {
+        for(int code = 0; code < CODES; code++) {
+            acts[code].reset();
+            actNanos[code].reset();
+        }
+        Arrays.fill(phaseNanos, 0);
+        Arrays.fill(histogram, 0);
+        Arrays.fill(recent, 0);
+        steps = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        lastStep = 0;
+        lastNanos = 0;
+        lastBirths = 0;
+        lastDeaths = 0;
+        lastInfections = 0;
+        lastAllocated = -1;
+        totalAllocated = 0;
+        Arrays.fill(population, 0);
+    }
+
+    /**
+     * Return a percentile of the most recent step times.
+     * @param fraction The percentile, as a fraction between 0 and 1.
+     * @return The step time, in milliseconds.
+     */
+    private double recentPercentile(double fraction)
+    {
+        int count = (int) Math.min(steps, RECENT);
+        if(count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(recent, count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.floor(fraction * count))] / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @param nanos A step time, in nanoseconds.
+     * @return The histogram bucket it falls in.
+     */
+    private static int bucket(long nanos)
+    {
+        long micros = nanos / 1000;
+        if(micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * @param events A field's tally.
+     * @return The births of every species so far.
+     */
+    private static long totalBirths(EventTally events)
+    {
+        long births = 0;
+        for(Species species : Species.values()) {
+            births += events.getBirths(species);
+        }
+        return births;
+    }
+
+    /**
+     * @param events A field's tally.
+     * @return The deaths of every species and cause so far.
+     */
+    private static long totalDeaths(EventTally events)
+    {
+        long deaths = 0;
+        for(Species species : Species.values()) {
+            for(DeathCause cause : DeathCause.values()) {
+                deaths += events.getDeaths(species, cause);
+            }
+        }
+        return deaths;
+    }
+
+    /**
+     * @param events A field's tally.
+     * @return The Humans infected so far.
+     */
+    private static long totalInfections(EventTally events)
+    {
+        return events.getDeaths(Species.HUMAN, DeathCause.INFECTION);
+    }
+
+    /**
+     * Remember a thread that has timed acts.
+     * @param thread The thread's id.
+     */
+    private synchronized void addActingThread(long thread)
+    {
+        if(indexOf(actingThreads, thread) < 0) {
+            long[] threads = Arrays.copyOf(actingThreads, actingThreads.length + 1);
+            threads[actingThreads.length] = thread;
+            actingThreads = threads;
+        }
+    }
+
+    /**
+     * Read the bytes allocated so far by the calling thread, which is
+     * stepping, and by each thread that has acted for it, forgetting
+     * those that have ended.
+     * @param totals Receives the bytes, by thread id, of each of those
+     *               threads that is still alive; nothing if the JVM
+     *               cannot tell.
+     */
+    private void readAllocations(Map<Long, Long> totals)
+    {
+        totals.clear();
+        if(allocations == null) {
+            return;
+        }
+        long stepping = Thread.currentThread().getId();
+        long[] ids = actingThreads;
+        if(indexOf(ids, stepping) < 0) {
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = stepping;
+        }
+        long[] bytes = allocations.getThreadAllocatedBytes(ids);
+        int alive = 0;
+        for(int i = 0; i < ids.length; i++) {
+            if(bytes[i] >= 0) {
+                totals.put(ids[i], bytes[i]);
+                alive++;
+            }
+        }
+        if(alive < ids.length) {
+            long[] threads = new long[alive];
+            int count = 0;
+            for(int i = 0; i < ids.length; i++) {
+                if(bytes[i] >= 0 && indexOf(actingThreads, ids[i]) >= 0) {
+                    threads[count++] = ids[i];
+                }
+            }
+            actingThreads = Arrays.copyOf(threads, count);
+        }
+    }
+
+    /**
+     * @param ids Thread ids.
+     * @param id A thread id.
+     * @return The index of id in ids, or -1 if it is not there.
+     */
+    private static int indexOf(long[] ids, long id)
+    {
+        for(int i = 0; i < ids.length; i++) {
+            if(ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the bytes allocated since the current step began by the
+     * stepping thread and the threads acting for it. A thread counts
+     * from the first step it is known at the start of, and not in a
+     * step in which it ends.
+     * @return The bytes, or -1 if the JVM cannot tell.
+     */
+    private long allocatedSince()
+    {
+        if(allocations == null) {
+            return -1;
+        }
+        readAllocations(allocatedAfter);
+        long allocated = 0;
+        for(Map.Entry<Long, Long> after : allocatedAfter.entrySet()) {
+            Long before = allocatedBefore.get(after.getKey());
+            if(before != null) {
+                allocated += after.getValue() - before;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * @return The allocation-counting thread bean, or null if the JVM
+     *         does not provide one.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if(sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Map;
+
+/**
+ * The management interface of StepMetrics, through which JMX clients
+ * such as JConsole see where a simulation's step time goes. Times are
+ * in milliseconds, apart from those of single acts, which are in
+ * nanoseconds.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public interface StepMetricsMXBean
+{
+    /**
+     * @return The number of steps measured.
+     */
+    long getSteps();
+
+    /**
+     * @return The number of the last step measured.
+     */
+    int getLastStep();
+
+    /**
+     * @return How long the last step took.
+     */
+    double getLastStepMillis();
+
+    /**
+     * @return How long a step took on average.
+     */
+    double getMeanStepMillis();
+
+    /**
+     * @return How long the slowest step took.
+     */
+    double getMaxStepMillis();
+
+    /**
+     * @return The median time of the most recent steps.
+     */
+    double getMedianStepMillis();
+
+    /**
+     * @return The 99th percentile time of the most recent steps.
+     */
+    double getPercentile99StepMillis();
+
+    /**
+     * @return The number of steps taking each power of two of
+     *         microseconds: entry i counts the steps that took from
+     *         2^i up to 2^(i+1) microseconds, the first entry also
+     *         counting faster steps.
+     */
+    long[] getStepLatencyHistogram();
+
+    /**
+     * @return The mean time per step spent in each phase of a step.
+     */
+    Map<String, Double> getPhaseMillis();
+
+    /**
+     * @return The number of acts measured for each species.
+     */
+    Map<String, Long> getActs();
+
+    /**
+     * @return The mean time of a single act for each species, or nothing
+     *         if the step engine does not time acts.
+     */
+    Map<String, Double> getMeanActNanos();
+
+    /**
+     * @return The number of births in the last step.
+     */
+    long getLastStepBirths();
+
+    /**
+     * @return The number of deaths in the last step, of any cause.
+     */
+    long getLastStepDeaths();
+
+    /**
+     * @return The number of Humans infected in the last step.
+     */
+    long getLastStepInfections();
+
+    /**
+     * @return The number of animals in the field after the last step.
+     */
+    int getPopulation();
+
+    /**
+     * @return The number of animals of each species in the field after
+     *         the last step.
+     */
+    Map<String, Integer> getPopulationBySpecies();
+
+    /**
+     * @return The bytes allocated in the last step by the stepping
+     *         thread and the threads that acted for it, or -1 if the
+     *         JVM cannot tell.
+     */
+    long getLastStepAllocatedBytes();
+
+    /**
+     * @return The mean bytes allocated per step by the stepping thread
+     *         and the threads that acted for it, or -1 if the JVM
+     *         cannot tell.
+     */
+    double getMeanAllocatedBytesPerStep();
+
+    /**
+     * Forget everything measured so far.
+     */
+    void reset();
+}
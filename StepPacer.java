@@ -0,0 +1,219 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how fast a Simulator steps and which steps its view is shown.
+ *
+ * There are three modes:
+ *     UNLIMITED   steps run back-to-back and every step is shown, for
+ *                 throughput runs.
+ *     FIXED_RATE  steps run at a target number per second. The time a
+ *                 step took counts towards its period, so the rate
+ *                 holds however long steps take, as long as they take
+ *                 less than a period; a run that falls behind carries
+ *                 on from the current time rather than rushing to
+ *                 catch up. Every step is shown.
+ *     ADAPTIVE    steps run back-to-back, but the view is only shown a
+ *                 step when a frame is due at the target frame rate, so
+ *                 while steps are faster than frames only every Nth
+ *                 step is drawn, N following the step time.
+ * Listeners added with Simulator.addListener are told about every step
+ * in every mode; only the view is skipped.
+ *
+ * A pacer keeps the timing of one Simulator and is only used on the
+ * thread running it.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class StepPacer
+{
+    /**
+     * The ways a pacer can pace steps.
+     */
+    public enum Mode
+    {
+        // As fast as possible, showing every step.
+        UNLIMITED,
+        // A fixed number of steps per second, showing every step.
+        FIXED_RATE,
+        // As fast as possible, showing steps at a fixed frame rate.
+        ADAPTIVE
+    }
+
+    // The rate at which a view used to be stepped, with 200 ms between steps.
+    public static final double DEFAULT_STEP_RATE = 5;
+    // The frame rate of an adaptive pacer by default.
+    public static final double DEFAULT_FRAME_RATE = SnapshotPublisher.DEFAULT_FRAME_RATE;
+    // Nanoseconds per second.
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    // The mode of the pacer.
+    private final Mode mode;
+    // The time between steps or frames, in nanoseconds; 0 if unlimited.
+    private final long period;
+    // When the next step may start or the next frame is due, by
+    // System.nanoTime; 0 until the first step or frame.
+    private long deadline;
+    // The number of steps shown and skipped.
+    private long shown;
+    private long skipped;
+
+    /**
+     * Create a pacer.
+     * @param mode The mode.
+     * @param period The time between steps or frames, in nanoseconds.
+     */
+    private StepPacer(Mode mode, long period)
+    {
+        this.mode = mode;
+        this.period = period;
+    }
+
+    /**
+     * @return A pacer running steps back-to-back and showing every one.
+     */
+    public static StepPacer unlimited()
+    {
+        return new StepPacer(Mode.UNLIMITED, 0);
+    }
+
+    /**
+     * @param stepsPerSecond The number of steps to run per second.
+     *                       Must be positive.
+     * @return A pacer running steps at a fixed rate and showing every one.
+     */
+    public static StepPacer fixedRate(double stepsPerSecond)
+    {
+        return new StepPacer(Mode.FIXED_RATE, periodOf(stepsPerSecond));
+    }
+
+    /**
+     * @param framesPerSecond The number of steps to show per second.
+     *                        Must be positive.
+     * @return A pacer running steps back-to-back and showing them at
+     *         most at the given frame rate.
+     */
+    public static StepPacer adaptive(double framesPerSecond)
+    {
+        return new StepPacer(Mode.ADAPTIVE, periodOf(framesPerSecond));
+    }
+
+    /**
+     * Parse a pacer from its description, as given on a command line:
+     * "unlimited", a number of steps per second such as "10", or
+     * "adaptive", optionally with a frame rate, such as "adaptive:60".
+     * @param description The description.
+     * @return The pacer.
+     * @throws IllegalArgumentException If the description is not valid.
+     */
+    public static StepPacer parse(String description)
+    {
+        if(description.equals("unlimited")) {
+            return unlimited();
+        }
+        if(description.equals("adaptive")) {
+            return adaptive(DEFAULT_FRAME_RATE);
+        }
+        try {
+            if(description.startsWith("adaptive:")) {
+                return adaptive(Double.parseDouble(description.substring("adaptive:".length())));
+            }
+            return fixedRate(Double.parseDouble(description));
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Not a pace: " + description, e);
+        }
+    }
+
+    /**
+     * @return The mode of the pacer.
+     */
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Start pacing afresh, e.g. at the start of a run, so that time
+     * spent between runs does not count.
+     */
+    public void restart()
+    {
+        deadline = 0;
+    }
+
+    /**
+     * Decide whether the view should be shown the step just run.
+     * @return true to show it.
+     */
+    public boolean shouldShow()
+    {
+        if(mode != Mode.ADAPTIVE) {
+            shown++;
+            return true;
+        }
+        long now = System.nanoTime();
+        if(deadline != 0 && now - deadline < 0) {
+            skipped++;
+            return false;
+        }
+        // Frames keep to the rate, unless drawing has fallen behind.
+        deadline = deadline != 0 && now - deadline < period ? deadline + period : now + period;
+        shown++;
+        return true;
+    }
+
+    /**
+     * Wait, if need be, until the next step may start.
+     */
+    public void awaitNextStep()
+    {
+        if(mode != Mode.FIXED_RATE) {
+            return;
+        }
+        long now = System.nanoTime();
+        if(deadline == 0 || now - deadline >= period) {
+            // The first step, or one too far behind to catch up.
+            deadline = now + period;
+            return;
+        }
+        long wait = deadline - now;
+        deadline += period;
+        if(wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The number of steps the view was shown.
+     */
+    public long getShownSteps()
+    {
+        return shown;
+    }
+
+    /**
+     * @return The number of steps the view was not shown.
+     */
+    public long getSkippedSteps()
+    {
+        return skipped;
+    }
+
+    /**
+     * @param perSecond A rate. Must be positive.
+     * @return The time between events at that rate, in nanoseconds.
+     */
+    private static long periodOf(double perSecond)
+    {
+        if(!(perSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + perSecond);
+        }
+        return Math.max(1, Math.round(NANOS_PER_SECOND / perSecond));
+    }
+}
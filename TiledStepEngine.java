@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Run a step on several threads by dividing the field into square tiles.
+ * 
+ * An animal only reads and writes the cells next to its own, so the
+ * tiles are coloured like a 2x2 checkerboard and the step runs in four
+ * phases, one per colour. Tiles of the same colour are separated by a
+ * whole tile, so their neighbourhoods never overlap and they can be
+ * processed concurrently without locking. Each animal is assigned to a
+ * tile by where it stands at the start of the step and acts exactly
+ * once, even if it moves into a tile that is processed later.
+ * 
+ * The order in which animals act differs from the sequential engine,
+ * so results are valid but not identical. They do not depend on the
+ * number of threads, though: the tiling is fixed by the tile size and
+ * every animal draws from its own keyed random stream.
+ * 
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class TiledStepEngine implements StepEngine
+{
+    // The default length of a tile side, in cells.
+    public static final int DEFAULT_TILE_SIZE = 16;
+    // The number of checkerboard colours, and so of phases per step.
+    private static final int PHASES = 4;
+
+    // The pool running the tiles.
+    private final ForkJoinPool pool;
+    // The length of a tile side, in cells.
+    private final int tileSize;
+    // The number of tiles down and across the current field.
+    private int tilesDown, tilesAcross;
+    // The animals starting the step in each tile, row-major by tile.
+    private List<Animal>[] tiles;
+    // The animals born in each tile during the step.
+    private List<Animal>[] newborns;
+    // The occupied tiles of each colour.
+    private int[][] phaseTiles;
+    private int[] phaseCounts;
+    // Where to record how long each act takes, or null.
+    private volatile StepMetrics metrics;
+
+    /**
+     * Create an engine using the common pool and the default tile size.
+     */
+    public TiledStepEngine()
+    {
+        this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create an engine using the given pool and tile size.
+     * @param pool The pool to run the tiles on.
+     * @param tileSize The length of a tile side. Must be at least 2.
+     */
+    public TiledStepEngine(ForkJoinPool pool, int tileSize)
+    {
+        if(tileSize < 2) {
+            throw new IllegalArgumentException("Tiles must be at least 2 cells across: " + tileSize);
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+        phaseTiles = new int[PHASES][];
+        phaseCounts = new int[PHASES];
+    }
+
+    /**
+     * Let every living animal in the roster act once, tile by tile.
+     * @param animals The animals in the simulation.
+     * @param field The field the animals live in.
+     * @param isDay Whether it is currently daytime.
+     * @param seed The seed of the run.
+     * @param step The number of the step being run.
+     */
+    public void step(Roster animals, Field field, boolean isDay, long seed, int step)
+    {
+        prepare(field);
+        field.setStep(step);
+        animals.removeDead();
+        for(Animal animal : animals) {
+            int tile = (animal.getRow() / tileSize) * tilesAcross + animal.getCol() / tileSize;
+            List<Animal> members = tiles[tile];
+            if(members.isEmpty()) {
+                int phase = phaseOf(tile);
+                phaseTiles[phase][phaseCounts[phase]++] = tile;
+            }
+            members.add(animal);
+        }
+
+        for(int phase = 0; phase < PHASES; phase++) {
+            if(phaseCounts[phase] > 0) {
+                pool.invoke(new TileRange(phaseTiles[phase], 0, phaseCounts[phase], isDay, seed, step));
+            }
+        }
+
+        // Rebuild the roster tile by tile, then drop those that died.
+        animals.clear();
+        for(int phase = 0; phase < PHASES; phase++) {
+            for(int i = 0; i < phaseCounts[phase]; i++) {
+                int tile = phaseTiles[phase][i];
+                animals.addAll(tiles[tile]);
+                animals.addAll(newborns[tile]);
+                tiles[tile].clear();
+                newborns[tile].clear();
+            }
+            phaseCounts[phase] = 0;
+        }
+        animals.removeDead();
+    }
+
+    /**
+     * Time each act, or stop timing them. The time of an act is added
+     * by the thread that ran it.
+     * @param metrics The metrics to record in, or null to stop timing.
+     */
+    public void setMetrics(StepMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Size the tile tables for the given field.
+     * @param field The field about to be stepped.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void prepare(Field field)
+    {
+        int down = (field.getDepth() + tileSize - 1) / tileSize;
+        int across = (field.getWidth() + tileSize - 1) / tileSize;
+        if(tiles == null || down != tilesDown || across != tilesAcross) {
+            tilesDown = down;
+            tilesAcross = across;
+            int count = down * across;
+            tiles = new List[count];
+            newborns = new List[count];
+            for(int t = 0; t < count; t++) {
+                tiles[t] = new ArrayList<>();
+                newborns[t] = new ArrayList<>();
+            }
+            for(int phase = 0; phase < PHASES; phase++) {
+                phaseTiles[phase] = new int[count];
+            }
+        }
+    }
+
+    /**
+     * @param tile A tile index.
+     * @return The checkerboard colour of the tile, 0 to 3.
+     */
+    private int phaseOf(int tile)
+    {
+        int tileRow = tile / tilesAcross;
+        int tileCol = tile % tilesAcross;
+        return (tileRow & 1) * 2 + (tileCol & 1);
+    }
+
+    /**
+     * Process a range of same-coloured tiles, splitting it between
+     * threads.
+     */
+    private class TileRange extends RecursiveAction
+    {
+        // Tasks are never serialized, but RecursiveAction is Serializable.
+        private static final long serialVersionUID = 1L;
+
+        // The tiles, and the range of them to process.
+        private final int[] tileIndices;
+        private final int from, to;
+        // Whether it is currently daytime.
+        private final boolean isDay;
+        // The seed of the run and the step being run.
+        private final long seed;
+        private final int step;
+
+        /**
+         * @param tileIndices Tile indices, all of one colour.
+         * @param from The first entry to process.
+         * @param to One past the last entry to process.
+         * @param isDay Whether it is currently daytime.
+         * @param seed The seed of the run.
+         * @param step The number of the step being run.
+         */
+        TileRange(int[] tileIndices, int from, int to, boolean isDay, long seed, int step)
+        {
+            this.tileIndices = tileIndices;
+            this.from = from;
+            this.to = to;
+            this.isDay = isDay;
+            this.seed = seed;
+            this.step = step;
+        }
+
+        /**
+         * Process the tiles directly or split the range in two.
+         */
+        protected void compute()
+        {
+            if(to - from <= 1) {
+                StepMetrics metrics = TiledStepEngine.this.metrics;
+                for(int i = from; i < to; i++) {
+                    int tile = tileIndices[i];
+                    List<Animal> born = newborns[tile];
+                    for(Animal animal : tiles[tile]) {
+                        if(animal.isAlive()) {
+                            Randomizer.begin(seed, step, animal.getId());
+                            if(metrics == null) {
+                                animal.act(born, isDay);
+                            }
+                            else {
+                                long start = System.nanoTime();
+                                animal.act(born, isDay);
+                                metrics.recordActs(animal.getSpecies(), 1, System.nanoTime() - start);
+                            }
+                        }
+                    }
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileRange(tileIndices, from, middle, isDay, seed, step),
+                          new TileRange(tileIndices, middle, to, isDay, seed, step));
+            }
+        }
+    }
+}
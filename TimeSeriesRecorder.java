@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Record the trajectory of a simulation to a file: for every step, the
+ * population of each species and the births and deaths (by cause, so
+ * including infections and predation) of each species since the step
+ * before. Add it to a Simulator with addListener.
+ *
+ * The simulation thread only fills a row of numbers and queues it; a
+ * background thread takes whatever rows are queued and writes them in
+ * one batch. Rows are recycled, and there are only as many as the
+ * queue holds, so the simulation waits only if the writer falls that
+ * far behind, and no step is ever lost.
+ *
+ * Two formats are offered. CSV has a header line of column names and
+ * a line per step. BINARY starts with the magic number "SIMT", a
+ * version, the number of columns and their names, followed by blocks,
+ * one per batch: the number of rows in the block, then each column's
+ * values for those rows in turn. All numbers are big-endian; names
+ * are written as a length and UTF-8 bytes.
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class TimeSeriesRecorder implements SimulationListener, AutoCloseable
+{
+    /**
+     * The file formats a recorder can write.
+     */
+    public enum Format
+    {
+        CSV,
+        BINARY
+    }
+
+    // The number of rows that may be waiting to be written by default.
+    public static final int DEFAULT_CAPACITY = 4096;
+    // Marks the start of a binary file ("SIMT").
+    private static final int MAGIC = 0x53494D54;
+    // The version of the binary layout.
+    private static final int VERSION = 1;
+    // The species recorded, and the causes of death.
+    private static final Species[] SPECIES = { Species.HUMAN, Species.DARKSEEKER, Species.DOG,
+                                               Species.MUTANT_DOG, Species.INFECTED_HUMAN };
+    private static final DeathCause[] CAUSES = DeathCause.values();
+    // Columns before the per-species ones: the step and whether it is day.
+    private static final int FIRST_SPECIES_COLUMN = 2;
+    // Queued after the last row to stop the writer.
+    private static final long[] END = new long[0];
+
+    // The name of each column.
+    private final String[] columns;
+    // The format being written.
+    private final Format format;
+    // The file being written.
+    private final FileChannel channel;
+    // Rows waiting to be written, and rows free to be filled.
+    private final BlockingQueue<long[]> filled;
+    private final BlockingQueue<long[]> free;
+    // The thread writing the rows.
+    private final Thread writer;
+    // The first error met by the writer, if any.
+    private volatile IOException failure;
+
+    // The following are only used on the simulation thread.
+    // The event totals of the field last recorded, and their values
+    // then; each row holds the difference since.
+    private EventTally events;
+    private final long[] totals;
+    // The last step recorded.
+    private int lastStep;
+
+    /**
+     * Start recording to a file, replacing it if it exists.
+     * @param file The file to write.
+     * @param format The format to write it in.
+     * @throws IOException If the file cannot be written.
+     */
+    public TimeSeriesRecorder(Path file, Format format) throws IOException
+    {
+        this(file, format, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Start recording to a file, replacing it if it exists.
+     * @param file The file to write.
+     * @param format The format to write it in.
+     * @param capacity The number of rows that may wait to be written.
+     * @throws IOException If the file cannot be written.
+     */
+    public TimeSeriesRecorder(Path file, Format format, int capacity) throws IOException
+    {
+        this.format = format;
+        columns = columnNames();
+        totals = new long[columns.length];
+        lastStep = -1;
+        filled = new ArrayBlockingQueue<>(capacity + 1);
+        free = new ArrayBlockingQueue<>(capacity);
+        for(int i = 0; i < capacity; i++) {
+            free.add(new long[columns.length]);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader();
+        writer = new Thread(this::writeRows, "TimeSeriesRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return The names of the columns, in order.
+     */
+    public String[] getColumnNames()
+    {
+        return columns.clone();
+    }
+
+    /**
+     * Record the state of the field after a step.
+     * @param step Which iteration step it is.
+     * @param field The field.
+     * @param isDay Whether it is currently daytime.
+     */
+    @Override
+    public void showStatus(int step, Field field, boolean isDay)
+    {
+        if(failure != null) {
+            throw new IllegalStateException("Recording failed", failure);
+        }
+        EventTally current = field.getEvents();
+        if(current != events || step <= lastStep) {
+            // A new field, or the same one reset: its totals start again.
+            events = current;
+            Arrays.fill(totals, 0);
+        }
+        lastStep = step;
+
+        long[] row = take();
+        row[0] = step;
+        row[1] = isDay ? 1 : 0;
+        int column = FIRST_SPECIES_COLUMN;
+        for(Species species : SPECIES) {
+            row[column++] = field.getCount(species);
+        }
+        for(Species species : SPECIES) {
+            row[column] = since(column, current.getBirths(species));
+            column++;
+        }
+        for(DeathCause cause : CAUSES) {
+            for(Species species : SPECIES) {
+                row[column] = since(column, current.getDeaths(species, cause));
+                column++;
+            }
+        }
+        filled.add(row);
+    }
+
+    /**
+     * Write every recorded row and close the file.
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        filled.add(END);
+        try {
+            writer.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Work out how much an event total has grown since it was last
+     * recorded, and remember the new total.
+     * @param column The column of the total.
+     * @param total The total now.
+     * @return The growth.
+     */
+    private long since(int column, long total)
+    {
+        long growth = total - totals[column];
+        totals[column] = total;
+        return growth;
+    }
+
+    /**
+     * Take a free row, waiting for the writer to free one if need be.
+     * @return The row.
+     */
+    private long[] take()
+    {
+        try {
+            return free.take();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to record", e);
+        }
+    }
+
+    /**
+     * Write queued rows in batches until the end is reached. Runs on the
+     * writer thread. After an error the rows are still taken and freed,
+     * so the simulation never waits for ever.
+     */
+    private void writeRows()
+    {
+        List<long[]> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        boolean ended = false;
+        while(!ended) {
+            try {
+                batch.add(filled.take());
+            }
+            catch(InterruptedException e) {
+                // Only close stops the writer.
+                continue;
+            }
+            filled.drainTo(batch);
+            if(batch.get(batch.size() - 1) == END) {
+                batch.remove(batch.size() - 1);
+                ended = true;
+            }
+            if(failure == null && !batch.isEmpty()) {
+                try {
+                    buffer = encode(batch, buffer);
+                    while(buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                catch(IOException e) {
+                    failure = e;
+                }
+            }
+            free.addAll(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Encode a batch of rows in the file's format.
+     * @param batch The rows.
+     * @param buffer A buffer that may be reused if it is large enough.
+     * @return The buffer holding the encoded rows, ready to be written.
+     */
+    private ByteBuffer encode(List<long[]> batch, ByteBuffer buffer)
+    {
+        if(format == Format.CSV) {
+            StringBuilder text = new StringBuilder(batch.size() * columns.length * 4);
+            for(long[] row : batch) {
+                for(int column = 0; column < row.length; column++) {
+                    if(column > 0) {
+                        text.append(',');
+                    }
+                    text.append(row[column]);
+                }
+                text.append('\n');
+            }
+            return ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        else {
+            int size = 4 + batch.size() * columns.length * 8;
+            if(buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size);
+            }
+            buffer.clear();
+            buffer.putInt(batch.size());
+            for(int column = 0; column < columns.length; column++) {
+                for(long[] row : batch) {
+                    buffer.putLong(row[column]);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Write the column names at the start of the file.
+     * @throws IOException If they cannot be written.
+     */
+    private void writeHeader() throws IOException
+    {
+        ByteBuffer buffer;
+        if(format == Format.CSV) {
+            buffer = ByteBuffer.wrap((String.join(",", columns) + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        else {
+            List<byte[]> names = new ArrayList<>();
+            int size = 12;
+            for(String column : columns) {
+                byte[] name = column.getBytes(StandardCharsets.UTF_8);
+                names.add(name);
+                size += 4 + name.length;
+            }
+            buffer = ByteBuffer.allocate(size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(columns.length);
+            for(byte[] name : names) {
+                buffer.putInt(name.length).put(name);
+            }
+            buffer.flip();
+        }
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return The name of each column, in the order they are recorded.
+     */
+    private static String[] columnNames()
+    {
+        List<String> names = new ArrayList<>();
+        names.add("step");
+        names.add("day");
+        for(Species species : SPECIES) {
+            names.add(species.getName());
+        }
+        for(Species species : SPECIES) {
+            names.add(species.getName() + ".births");
+        }
+        for(DeathCause cause : CAUSES) {
+            for(Species species : SPECIES) {
+                names.add(species.getName() + "." + cause.name().toLowerCase());
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: a schedule of items, each due at some
+ * step, from which the items due at each step can be taken in time
+ * proportional to their number rather than to the number scheduled.
+ *
+ * The wheel has four levels of 64 slots. The first level holds the
+ * items due within the current block of 64 steps, one slot per step;
+ * each higher level holds items due further ahead, one slot per block
+ * of the level below, and a slot is spread over the levels below when
+ * its block begins. Items due more than 2^24 steps ahead wait in an
+ * overflow slot, which is spread out every 2^24 steps. Scheduling is
+ * constant time, and each item is moved at most once per level before
+ * it is due.
+ *
+ * Items cannot be cancelled. An item whose due step changes should be
+ * checked when it comes due, and scheduled again if it is not yet due.
+ *
+ * Typical use:
+ *     TimingWheel<Animal> deaths = new TimingWheel<>(step);
+ *     deaths.schedule(animal, animal.getDeathStep());
+ *     ...
+ *     deaths.advance(step, animal -> ...);
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+public class TimingWheel<T>
+{
+    // The log of the number of slots in a level.
+    private static final int SLOT_BITS = 6;
+    // The number of slots in a level, and the mask that takes a slot.
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    // The number of levels.
+    private static final int LEVELS = 4;
+    // The mask that takes a step within the reach of the highest level.
+    private static final int REACH_MASK = (1 << SLOT_BITS * LEVELS) - 1;
+
+    // The slots of each level, by level then slot.
+    private final Slot[][] slots;
+    // The items due beyond the reach of the highest level.
+    private Slot overflow;
+    // An empty slot, swapped for a slot while its items are taken.
+    private Slot spare;
+    // The last step advanced to.
+    private int now;
+    // The number of items scheduled and not yet taken.
+    private int size;
+
+    /**
+     * Create an empty wheel.
+     * @param now The step the wheel starts at, which must not be negative.
+     *            Items are first taken when it advances past this step.
+     */
+    public TimingWheel(int now)
+    {
+        checkStart(now);
+        slots = new Slot[LEVELS][SLOTS];
+        for(int level = 0; level < LEVELS; level++) {
+            for(int slot = 0; slot < SLOTS; slot++) {
+                slots[level][slot] = new Slot();
+            }
+        }
+        overflow = new Slot();
+        spare = new Slot();
+        this.now = now;
+    }
+
+    /**
+     * Schedule an item.
+     * @param item The item.
+     * @param due The step at which it is due. An item due at or before
+     *            the current step is taken at the next.
+     */
+    public void schedule(T item, int due)
+    {
+        place(item, Math.max(due, now + 1));
+        size++;
+    }
+
+    /**
+     * Advance to a later step, taking every item that comes due on the
+     * way, in order of due step.
+     * @param step The step to advance to. Nothing happens if it is not
+     *             after the current step.
+     * @param action What to do with each item taken. It may schedule
+     *               items, which are due after the step it is called at.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(int step, Consumer<? super T> action)
+    {
+        while(now < step) {
+            now++;
+            if((now & REACH_MASK) == 0 && overflow.count > 0) {
+                Slot items = overflow;
+                overflow = spare;
+                spread(items);
+            }
+            for(int level = LEVELS - 1; level > 0; level--) {
+                int slot = (now >>> SLOT_BITS * level) & SLOT_MASK;
+                if((now & ((1 << SLOT_BITS * level) - 1)) == 0 && slots[level][slot].count > 0) {
+                    Slot items = slots[level][slot];
+                    slots[level][slot] = spare;
+                    spread(items);
+                }
+            }
+            int slot = now & SLOT_MASK;
+            Slot due = slots[0][slot];
+            if(due.count > 0) {
+                slots[0][slot] = spare;
+                size -= due.count;
+                for(int i = 0; i < due.count; i++) {
+                    action.accept((T) due.items[i]);
+                }
+                due.clear();
+                spare = due;
+            }
+        }
+    }
+
+    /**
+     * @return The last step advanced to.
+     */
+    public int getNow()
+    {
+        return now;
+    }
+
+    /**
+     * @return The number of items scheduled and not yet taken.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Forget every item, and start again at the given step.
+     * @param now The step to start at, which must not be negative.
+     */
+    public void clear(int now)
+    {
+        checkStart(now);
+        for(Slot[] level : slots) {
+            for(Slot slot : level) {
+                slot.clear();
+            }
+        }
+        overflow.clear();
+        size = 0;
+        this.now = now;
+    }
+
+    /**
+     * Put an item in the slot for its due step: the one at the lowest
+     * level whose slots are each within a single slot of the level
+     * above holding both the due step and the current step.
+     * @param item The item.
+     * @param due Its due step, after the current step.
+     */
+    private void place(Object item, int due)
+    {
+        for(int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if(due >>> shift == now >>> shift) {
+                slots[level][(due >>> SLOT_BITS * level) & SLOT_MASK].add(item, due);
+                return;
+            }
+        }
+        overflow.add(item, due);
+    }
+
+    /**
+     * Place the items of a slot again, now that its block has begun,
+     * and keep the emptied slot as the spare. The slot must already
+     * have been replaced by the spare.
+     * @param items The slot.
+     */
+    private void spread(Slot items)
+    {
+        for(int i = 0; i < items.count; i++) {
+            place(items.items[i], items.dues[i]);
+        }
+        items.clear();
+        spare = items;
+    }
+
+    /**
+     * Check that a wheel can start at a step.
+     * @param now The step.
+     */
+    private static void checkStart(int now)
+    {
+        if(now < 0) {
+            throw new IllegalArgumentException("A timing wheel cannot start at step " + now);
+        }
+    }
+
+    /**
+     * The items of one slot and the steps at which they are due.
+     */
+    private static class Slot
+    {
+        // The items, and the step at which each is due.
+        Object[] items = new Object[4];
+        int[] dues = new int[4];
+        // The number of items.
+        int count;
+
+        /**
+         * @param item An item to add.
+         * @param due The step at which it is due.
+         */
+        void add(Object item, int due)
+        {
+            if(count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+                dues = Arrays.copyOf(dues, count * 2);
+            }
+            items[count] = item;
+            dues[count] = due;
+            count++;
+        }
+
+        /**
+         * Remove every item.
+         */
+        void clear()
+        {
+            Arrays.fill(items, 0, count, null);
+            count = 0;
+        }
+    }
+}
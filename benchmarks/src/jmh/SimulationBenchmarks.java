@@ -0,0 +1,111 @@
+package jmh;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The MicroBenchmarks of the simulation, run under JMH: each in three
+ * forked JVMs, warmed up for twenty seconds, as the set-ups take much
+ * of that time, and measured over ten iterations of a second. With
+ * -prof gc, JMH also reports the collections and the bytes allocated
+ * per invocation, though those include the set-up's; MicroBenchmarks'
+ * own bytes per operation count the timed work alone.
+ *
+ * JMH does not allow benchmarks in the default package, and a named
+ * package cannot name the simulation's classes, so the benchmarks are
+ * looked up by name with MicroBenchmarks.workload, once per trial.
+ * Each invocation is one run of a benchmark's work, e.g. a query for
+ * every cell of a field or twenty whole steps, after its set-up, so
+ * times are per run rather than per operation.
+ *
+ *     mvn package
+ *     java -jar target/benchmarks.jar -prof gc
+ *     java -jar target/benchmarks.jar -p benchmark=HUMAN.act
+ *
+ * @author Benedict Udall and Eliza Bujor
+ * @version 2026.10.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class SimulationBenchmarks
+{
+    // The name of the benchmark, as in the MicroBenchmarks report. The
+    // view's benchmark is left out, as it needs a display.
+    @Param({ "Field.adjacentLocations", "Field.getFreeAdjacentLocations", "Field.neighbours",
+             "Field.neighbourMask", "HUMAN.act", "DOG.act", "DARKSEEKER.act", "MUTANT_DOG.act",
+             "INFECTED_HUMAN.act", "FieldStats.generateCounts",
+             "Simulator.simulateOneStep 80x120",
+             "SequentialStepEngine.step 80x120 @0.05", "SpeciesBatchedStepEngine.step 80x120 @0.05",
+             "PopulationStepEngine.step 80x120 @0.05",
+             "SequentialStepEngine.step 80x120 @0.32", "SpeciesBatchedStepEngine.step 80x120 @0.32",
+             "PopulationStepEngine.step 80x120 @0.32",
+             "Simulator.simulateOneStep 200x300",
+             "SequentialStepEngine.step 200x300 @0.05", "SpeciesBatchedStepEngine.step 200x300 @0.05",
+             "PopulationStepEngine.step 200x300 @0.05",
+             "SequentialStepEngine.step 200x300 @0.32", "SpeciesBatchedStepEngine.step 200x300 @0.32",
+             "PopulationStepEngine.step 200x300 @0.32",
+             "Simulator.simulateOneStep 500x500",
+             "SequentialStepEngine.step 500x500 @0.05", "SpeciesBatchedStepEngine.step 500x500 @0.05",
+             "PopulationStepEngine.step 500x500 @0.05",
+             "SequentialStepEngine.step 500x500 @0.32", "SpeciesBatchedStepEngine.step 500x500 @0.32",
+             "PopulationStepEngine.step 500x500 @0.32" })
+    public String benchmark;
+
+    // The benchmark's untimed set-up and its timed work.
+    private Runnable setUp;
+    private LongSupplier work;
+
+    /**
+     * Look the benchmark up.
+     * @throws ReflectiveOperationException If the simulation's classes
+     *                                      are not on the class path.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void lookUp() throws ReflectiveOperationException
+    {
+        Map.Entry<Runnable, LongSupplier> workload = (Map.Entry<Runnable, LongSupplier>)
+            Class.forName("MicroBenchmarks").getMethod("workload", String.class).invoke(null, benchmark);
+        setUp = workload.getKey();
+        work = workload.getValue();
+    }
+
+    /**
+     * Prepare for the next run of the work. Not timed; even the shortest
+     * runs, one act by each animal of a species, take some hundreds of
+     * microseconds, far longer than JMH's timing around each one.
+     */
+    @Setup(Level.Invocation)
+    public void prepare()
+    {
+        setUp.run();
+    }
+
+    /**
+     * Run the work once.
+     * @return The number of operations, so that the work is not
+     *         optimised away.
+     */
+    @Benchmark
+    public long run()
+    {
+        return work.getAsLong();
+    }
+}